@@ -2,42 +2,54 @@ package player;
 
 import mnkgame.*;
 
-public class BoardStatus {
-    private class Score {
-        public int aligned, moves;
-        public int start;
-
-        public Score(int aligned, int moves, int start) {
-            this.aligned = aligned;
-            this.moves = moves;
-            this.start = start;
-        }
-        public Score(Score toCopy) {
-            this.aligned = toCopy.aligned;
-            this.moves = toCopy.moves;
-            this.start = toCopy.start;
-        }
+import java.util.Arrays;
 
-        @Override
-        public String toString() {
-            return String.format("[( %d ) %d %d]", start, aligned, moves);
-        }
-    }
+public class BoardStatus {
+    /*
+     * Score di una cella rispetto ad una linea, codificato in un int: | inizio allineamento + 1 (11) | mosse per vincere (10) | allineabili (10) |
+     * (K e lunghezza delle linee < 1024)
+     * */
+    private static final int SCORE_FIELD_BITS = 10;
+    private static final int SCORE_FIELD_MASK = (1 << SCORE_FIELD_BITS) - 1;
+    private static final int EMPTY_SCORE = -1;          // Score non ancora calcolato
 
     private Matrix matrix;
     private int columns, rows, target;
+    private final Zobrist zobrist;
+    private final Symmetry symmetry;
+    private final long[] hashes;    // hashes[s] = Hash di Zobrist dell'immagine della configurazione corrente tramite la simmetria s
     private final MNKCellState PLAYER_STATE, OPPONENT_STATE;
 
-    private Score[][] rowScore_player, columnScore_player, mainDiagonalScore_player, secondaryDiagonalScore_player;
-    private Score[][] rowScore_opponent, columnScore_opponent, mainDiagonalScore_opponent, secondaryDiagonalScore_opponent;
+    private final Lines lines;
+    private final LinePatterns patterns;                            // Tabelle degli score delle linee (null se K > LinePatterns.MAX_TARGET)
+    private final long[] lineBits_player, lineBits_opponent;       // Bitboard delle linee: bit k della linea l = pedina del giocatore nella posizione k di l
+    private final int[][] lineScore_player, lineScore_opponent;    // lineScore[direzione][riga*N + colonna] = score della cella rispetto alla linea in quella direzione
+    private final int[] lineScores;                                 // Buffer della linea in elaborazione: score calcolati per posizione
+    private final LineScoreCache lineScoreCache;                    // Score delle linee già calcolati (null se non utilizzata)
+    private final int NOT_WINNABLE_LINE_SCORE;
 
     private final int NOT_WINNABLE_SCORE;
 
+    private final Windows windows;
+    private final int[] windowStones_player, windowStones_opponent;    // Pedine di ciascun giocatore in ciascuna finestra di K celle
+    private final int[] liveWindows_player, liveWindows_opponent;      // liveWindows[s] = finestre senza pedine dell'avversario che contengono s pedine del giocatore
+
     /**
      * @implNote Costo: Θ(M*N)
      * */
     public BoardStatus(int columns, int rows, int target, MNKCellState playerState) {
+        this(columns, rows, target, playerState, null);
+    }
+
+    /**
+     * @param lineScoreCache Cache degli score delle linee condivisa tra le griglie dello stesso thread (null se non utilizzata)
+     * @implNote Costo: Θ(M*N)
+     * */
+    public BoardStatus(int columns, int rows, int target, MNKCellState playerState, LineScoreCache lineScoreCache) {
         matrix = new Matrix(columns, rows, target);
+        zobrist = Zobrist.of(columns, rows);
+        symmetry = Symmetry.of(columns, rows);
+        hashes = new long[symmetry.count()];
 
         this.columns = columns;
         this.rows = rows;
@@ -46,17 +58,37 @@ public class BoardStatus {
         this.PLAYER_STATE = playerState;
         this.OPPONENT_STATE = playerState == MNKCellState.P1 ? MNKCellState.P2 : MNKCellState.P1;
 
-        rowScore_player = new Score[columns][rows];
-        columnScore_player = new Score[columns][rows];
-        mainDiagonalScore_player = new Score[columns][rows];
-        secondaryDiagonalScore_player = new Score[columns][rows];
-
-        rowScore_opponent = new Score[columns][rows];
-        columnScore_opponent = new Score[columns][rows];
-        mainDiagonalScore_opponent = new Score[columns][rows];
-        secondaryDiagonalScore_opponent = new Score[columns][rows];
+        lines = Lines.of(columns, rows);
+        patterns = LinePatterns.of(target);
+        lineBits_player = new long[lines.words()];
+        lineBits_opponent = new long[lines.words()];
+        lineScore_player = new int[Lines.DIRECTIONS][columns*rows];
+        lineScore_opponent = new int[Lines.DIRECTIONS][columns*rows];
+        for (int d=0; d<Lines.DIRECTIONS; d++) {
+            Arrays.fill(lineScore_player[d], EMPTY_SCORE);
+            Arrays.fill(lineScore_opponent[d], EMPTY_SCORE);
+        }
+        lineScores = new int[Math.max(columns, rows)];
+        this.lineScoreCache = lineScoreCache;
 
         NOT_WINNABLE_SCORE = target+1;
+        NOT_WINNABLE_LINE_SCORE = packScore(0, NOT_WINNABLE_SCORE, -1);
+
+        windows = Windows.of(columns, rows, target);
+        windowStones_player = new int[windows.count()];
+        windowStones_opponent = new int[windows.count()];
+        liveWindows_player = new int[target+1];
+        liveWindows_opponent = new int[target+1];
+        liveWindows_player[0] = windows.count();
+        liveWindows_opponent[0] = windows.count();
+    }
+
+    /**
+     * Restituisce il numero di celle occupate
+     * @implNote Costo: Θ(1)
+     * */
+    public int size() {
+        return matrix.size();
     }
 
     /**
@@ -73,9 +105,15 @@ public class BoardStatus {
      *           Costo (ottimo): Θ(1)
      * */
     public void setAt(int x, int y, MNKCellState state) {
-                                        // Ottimo   Pessimo
-        matrix.setAt(x, y, state);      // Θ(1)     Θ(1)
-        clearScores(x, y);              // Θ(1)     O(max{M, N})
+                                                            // Ottimo   Pessimo
+        updateHashes(x, y, matrix.getAt(x, y));             // Θ(1)     Θ(1)
+        removeFromWindows(x, y, matrix.getAt(x, y));        // Θ(K)     Θ(K)
+        updateLineBits(x, y, matrix.getAt(x, y), false);    // Θ(1)     Θ(1)
+        matrix.setAt(x, y, state);                          // Θ(1)     Θ(1)
+        updateHashes(x, y, matrix.getAt(x, y));             // Θ(1)     Θ(1)
+        addToWindows(x, y, matrix.getAt(x, y));             // Θ(K)     Θ(K)
+        updateLineBits(x, y, matrix.getAt(x, y), true);     // Θ(1)     Θ(1)
+        clearScores(x, y);                                  // Θ(1)     O(max{M, N})
     }
 
     /**
@@ -85,404 +123,370 @@ public class BoardStatus {
      * */
     public void removeAt(int x, int y) {
         if (matrix.getAt(x, y) != MNKCellState.FREE) {
+            updateHashes(x, y, matrix.getAt(x, y));
+            removeFromWindows(x, y, matrix.getAt(x, y));
+            updateLineBits(x, y, matrix.getAt(x, y), false);
             matrix.removeAt(x, y);
             clearScores(x, y);
         }
     }
 
     /**
-     * Indica se una determinata cella è FREE
-     * @implNote Costo: Θ(1)
+     * Aggiunge/rimuove dagli hash di tutte le immagini simmetriche la pedina in (x, y)
+     * @implNote Costo: Θ(1) [Al più 8 simmetrie]
      * */
-    public boolean isFreeAt(int x, int y) {
-        return matrix.getAt(x, y) == MNKCellState.FREE;
+    private void updateHashes(int x, int y, MNKCellState state) {
+        int cell = y*columns + x;
+        for (int s=0; s<hashes.length; s++) {
+            hashes[s] ^= zobrist.keyOf(symmetry.apply(s, cell), state);
+        }
     }
 
     /**
-     * Imposta a null la riga, colonna e diagonali che passano per (x, y)
-     * @implNote Costo (pessimo): O(max{M, N}) = O(M+N)<br/>
-     *           Costo (ottimo): Θ(1)
+     * Aggiunge la pedina in (x, y) alle finestre che la contengono: le finestre restano vincibili dal proprietario
+     * della pedina (con una pedina in più) e non sono più vincibili dall'altro giocatore
+     * @implNote Costo: Θ(K)
      * */
-    private void clearScores(int x, int y) {
-        if (rowScore_player[x][y] == null && columnScore_player[x][y] == null && mainDiagonalScore_player[x][y] == null && secondaryDiagonalScore_player[x][y] == null) { return; }
-
-        // Riga                                         Θ(N)
-        for (int i=0; i<columns; i++) {
-            rowScore_player[i][y] = null; rowScore_opponent[i][y] = null;
-        }
-
-        // Colonna                                      Θ(M)
-        for (int i=0; i<rows; i++) {
-            columnScore_player[x][i] = null; columnScore_opponent[x][i] = null;
-        }
-
-        // Diagonali principali                         O(min {M, N})
-        int i=x, j=y;
-        while (i >= 0 && j >= 0) {
-            mainDiagonalScore_player[i][j] = null; mainDiagonalScore_opponent[i][j] = null;
-            i--; j--;
-        }
-        i=x+1; j=y+1;
-        while (i < columns && j < rows) {
-            mainDiagonalScore_player[i][j] = null; mainDiagonalScore_opponent[i][j] = null;
-            i++; j++;
+    private void addToWindows(int x, int y, MNKCellState state) {
+        if (state == MNKCellState.FREE) { return; }
+        final int[] own = state == PLAYER_STATE ? windowStones_player : windowStones_opponent;
+        final int[] other = state == PLAYER_STATE ? windowStones_opponent : windowStones_player;
+        final int[] ownLive = state == PLAYER_STATE ? liveWindows_player : liveWindows_opponent;
+        final int[] otherLive = state == PLAYER_STATE ? liveWindows_opponent : liveWindows_player;
+
+        for (int window : windows.windowsOf(y*columns + x)) {                           // Θ(4K)
+            if (other[window] == 0) { ownLive[own[window]]--; ownLive[own[window]+1]++; }
+            if (own[window] == 0) { otherLive[other[window]]--; }
+            own[window]++;
         }
+    }
 
-        // Diagonali secondarie                         O(min {M, N})
-        i=x; j=y;
-        while (i < columns && j >= 0) {
-            secondaryDiagonalScore_player[i][j] = null; secondaryDiagonalScore_opponent[i][j] = null;
-            i++; j--;
-        }
-        i=x-1; j=y+1;
-        while (i >= 0 && j < rows) {
-            secondaryDiagonalScore_player[i][j] = null; secondaryDiagonalScore_opponent[i][j] = null;
-            i--; j++;
+    /**
+     * Rimuove la pedina in (x, y) dalle finestre che la contengono (operazione inversa di addToWindows)
+     * @implNote Costo: Θ(K)
+     * */
+    private void removeFromWindows(int x, int y, MNKCellState state) {
+        if (state == MNKCellState.FREE) { return; }
+        final int[] own = state == PLAYER_STATE ? windowStones_player : windowStones_opponent;
+        final int[] other = state == PLAYER_STATE ? windowStones_opponent : windowStones_player;
+        final int[] ownLive = state == PLAYER_STATE ? liveWindows_player : liveWindows_opponent;
+        final int[] otherLive = state == PLAYER_STATE ? liveWindows_opponent : liveWindows_player;
+
+        for (int window : windows.windowsOf(y*columns + x)) {                           // Θ(4K)
+            own[window]--;
+            if (other[window] == 0) { ownLive[own[window]+1]--; ownLive[own[window]]++; }
+            if (own[window] == 0) { otherLive[other[window]]++; }
         }
     }
 
     /**
-     * Restituisce un vettore di Score tale che la posizione i-esima indichi il numero di mosse mancanti per vincere se si selezionasse la mossa in quella posizione
-     * @param board Vettore contenente la configurazione di gioco rispetto ad una riga/colonna/diagonale
-     * @param toCheckState Lo stato da controllare (giocatore o avversario)
-     * @implNote Costo (pessimo): O(board.length * K)
+     * Restituisce il numero di finestre di K celle ancora vincibili (senza pedine dell'avversario) dal giocatore indicato
+     * @implNote Costo: Θ(K)
      * */
-    private Score[] getScoresArray(MNKCellState[] board, MNKCellState toCheckState) {
-        MNKCellState oppositeState = (toCheckState == MNKCellState.P1) ? MNKCellState.P2 : MNKCellState.P1;
-        Score[] s = new Score[board.length];
-
-        if (board[0] == toCheckState)       { s[0] = new Score(1, 0, -1); }
-        else if (board[0] == oppositeState) { s[0] = new Score(0, 0, -1); }
-        else /* status[0] == FREE */        { s[0] = new Score(1, 1, -1); }
+    public int getLiveWindows(MNKCellState state) {
+        int count = 0;
+        for (int windows : state == PLAYER_STATE ? liveWindows_player : liveWindows_opponent) { count += windows; }
+        return count;
+    }
 
-        for (int i=1; i<board.length; i++) {                                                            // O(board.length)
-            if (board[i] == oppositeState) {
-                s[i] = new Score(0, 0, -1);
-            }
-            else if (s[i-1].aligned < target) {
-                if (board[i] == toCheckState) {
-                    s[i] = new Score(s[i-1].aligned + 1, s[i-1].moves, -1);
-                }
-                else { // board[i] == FREE
-                    s[i] = new Score(s[i-1].aligned + 1, s[i-1].moves + 1, -1);
-                }
+    /**
+     * Indica se nessuno dei due giocatori può più vincere (la partita terminerà in pareggio)
+     * @implNote Costo: Θ(K)
+     * */
+    public boolean isDead() {
+        return getLiveWindows(PLAYER_STATE) == 0 && getLiveWindows(OPPONENT_STATE) == 0;
+    }
 
-                if (s[i].aligned == target) { s[i].start = i-(target-1); } // Se sono in grado di allinearne fino al target, imposto l'inizio dell'allineamento
-            }
-            else {
-                int toIgnoreMoveCost = 0;
-                if (board[i-target] == MNKCellState.FREE) { toIgnoreMoveCost = 1; }
+    /**
+     * Restituisce l'hash di Zobrist della configurazione corrente
+     * @implNote Costo: Θ(1)
+     * */
+    public long getHash() {
+        return hashes[Symmetry.IDENTITY];
+    }
 
-                if (board[i] == toCheckState) {
-                    s[i] = new Score(s[i-1].aligned, s[i-1].moves - toIgnoreMoveCost, i-(target-1));
-                }
-                else { // board[i] == FREE
-                    s[i] = new Score(s[i-1].aligned, s[i-1].moves + 1 - toIgnoreMoveCost, i-(target-1));
-                }
-            }
+    /**
+     * Restituisce la simmetria che porta la configurazione corrente nella sua forma canonica
+     * (l'immagine con hash minimo: configurazioni simmetriche hanno la stessa forma canonica)
+     * @implNote Costo: Θ(1) [Al più 8 simmetrie]
+     * */
+    public int getCanonicalSymmetry() {
+        int best = Symmetry.IDENTITY;
+        for (int s=1; s<hashes.length; s++) {
+            if (hashes[s] < hashes[best]) { best = s; }
+        }
+        return best;
+    }
 
-            // Progapazione
-            if (s[i].aligned == target) {
-                for (int k=1; k<=target-1 && i-k>=0; k++) {                                             // O(K)
-                    // Interrompo se incontro una mossa migliore della i-esima (necessita di meno mosse per vincere)
-                    if (s[i-k].aligned == target && s[i-k].moves <= s[i].moves) { break; }
+    /**
+     * Restituisce l'hash di Zobrist dell'immagine della configurazione corrente tramite la simmetria indicata
+     * @implNote Costo: Θ(1)
+     * */
+    public long getHash(int symmetry) {
+        return hashes[symmetry];
+    }
 
-                    s[i-k] = new Score(s[i]);
-                }
-            }
+    /**
+     * Restituisce l'insieme (bit s impostato) delle simmetrie che lasciano invariata la configurazione corrente
+     * @implNote Costo: Θ(1) [Al più 8 simmetrie]
+     * */
+    public int getInvariantSymmetries() {
+        int mask = 0;
+        for (int s=0; s<hashes.length; s++) {
+            if (hashes[s] == hashes[Symmetry.IDENTITY]) { mask |= 1 << s; }
         }
+        return mask;
+    }
 
-        return s;
+    /**
+     * Indica se una determinata cella è FREE
+     * @implNote Costo: Θ(1)
+     * */
+    public boolean isFreeAt(int x, int y) {
+        return matrix.getAt(x, y) == MNKCellState.FREE;
     }
 
     /**
-     * Imposta il punteggio di una determinata cella rispetto ad una determinata direzione.
+     * Codifica lo score di una cella rispetto ad una linea
      * @implNote Costo: Θ(1)
      * */
-    private void setScore(Score[][] score, int x, int y, Score value) {
-        if (value.aligned == 0 && value.moves == 0) {
-            score[x][y] = new Score(0, NOT_WINNABLE_SCORE, -1);
-        }
-        else if (value.aligned != target) {
-            score[x][y] = new Score(value.aligned, NOT_WINNABLE_SCORE, -1);
-        }
-        else {
-            score[x][y] = new Score(value);
-        }
+    private static int packScore(int aligned, int moves, int start) {
+        return aligned | (moves << SCORE_FIELD_BITS) | ((start + 1) << 2*SCORE_FIELD_BITS);
     }
 
     /**
-     * Riempie, nella matrice degli Score delle righe, la riga contenente la cella nella posizione indicata
-     * @implNote Costo (pessimo): O(N*K)<br/>
-     *           Costo (ottimo): Θ(1)
+     * Funzioni di accesso ai campi di uno score codificato
+     * @implNote Costo: Θ(1)
      * */
-    private void fillRowScoreAt(int x, int y) {
-        if (rowScore_player[x][y] != null && rowScore_opponent[x][y] != null) { return; }
+    private static int alignedOf(int score) { return score & SCORE_FIELD_MASK; }
+    private static int movesOf(int score) { return (score >>> SCORE_FIELD_BITS) & SCORE_FIELD_MASK; }
+    private static int startOf(int score) { return (score >>> 2*SCORE_FIELD_BITS) - 1; }
 
-        Score[] moves;
-        final MNKCellState[] row = matrix.getRowAt(x, y);       // Θ(N)
+    /**
+     * Imposta (value = true) o azzera il bit della pedina in (x, y) nelle bitboard delle 4 linee che la contengono
+     * @implNote Costo: Θ(1)
+     * */
+    private void updateLineBits(int x, int y, MNKCellState state, boolean value) {
+        if (state == MNKCellState.FREE) { return; }
+        final long[] bits = state == PLAYER_STATE ? lineBits_player : lineBits_opponent;
+        final int cell = y*columns + x;
 
-        // Giocatore
-        moves = getScoresArray(row, PLAYER_STATE);              // O(N*K)
-        for (int j=0; j<columns; j++) {                         // Θ(N)
-            setScore(rowScore_player, j, y, moves[j]);
+        for (int d=0; d<Lines.DIRECTIONS; d++) {
+            int position = lines.positionOf(d, cell);
+            int word = lines.wordOffsetOf(lines.lineOf(d, cell)) + (position >>> 6);
+            if (value) { bits[word] |= 1L << position; }        // Lo shift usa solo i 6 bit meno significativi
+            else { bits[word] &= ~(1L << position); }
         }
+    }
+
+    /**
+     * Conta i bit impostati nelle posizioni [from, to) della bitboard di una linea
+     * @param base Prima parola della bitboard della linea
+     * @implNote Costo: Θ((to - from) / 64 + 1)
+     * */
+    private static int countBits(long[] bits, int base, int from, int to) {
+        final int first = from >>> 6, last = (to-1) >>> 6;
+        int count = 0;
 
-        // Avversario
-        moves = getScoresArray(row, OPPONENT_STATE);            // O(N*K)
-        for (int j=0; j<columns; j++) {                         // Θ(N)
-            setScore(rowScore_opponent, j, y, moves[j]);
+        for (int word=first; word<=last; word++) {
+            long mask = -1L;
+            if (word == first) { mask &= -1L << (from & 63); }
+            if (word == last) { mask &= -1L >>> (63 - ((to-1) & 63)); }
+            count += Long.bitCount(bits[base + word] & mask);
         }
+        return count;
     }
 
     /**
-     * Riempie, nella matrice degli Score delle colonne, la colonna contenente la cella nella posizione indicata
-     * @implNote Costo (pessimo): O(M*K)<br/>
-     *           Costo (ottimo): Θ(1)
+     * Indica se la posizione indicata della linea è libera
+     * @implNote Costo: Θ(1)
      * */
-    private void fillColumnScoreAt(int x, int y) {
-        if (columnScore_player[x][y] != null && columnScore_opponent[x][y] != null) { return; }
+    private boolean isFreeInLine(int base, int position) {
+        final long bit = 1L << position;
+        return ((lineBits_player[base + (position >>> 6)] | lineBits_opponent[base + (position >>> 6)]) & bit) == 0;
+    }
 
-        Score[] moves;
-        final MNKCellState[] column = matrix.getColumnAt(x, y);     // Θ(M)
+    /**
+     * Invalida gli score della riga, colonna e diagonali che passano per (x, y)
+     * @implNote Costo (pessimo): O(max{M, N}) = O(M+N)<br/>
+     *           Costo (ottimo): Θ(1)
+     * */
+    private void clearScores(int x, int y) {
+        final int cell = y*columns + x;
 
-        // Giocatore
-        moves = getScoresArray(column, PLAYER_STATE);               // O(M*K)
-        for (int j=0; j<rows; j++) {                                // Θ(M)
-            setScore(columnScore_player, x, j, moves[j]);
-        }
+        for (int d=0; d<Lines.DIRECTIONS; d++) {
+            if (lineScore_player[d][cell] == EMPTY_SCORE) { continue; }
 
-        // Avversario
-        moves = getScoresArray(column, OPPONENT_STATE);             // O(M*K)
-        for (int j=0; j<rows; j++) {                                // Θ(M)
-            setScore(columnScore_opponent, x, j, moves[j]);
+            final int line = lines.lineOf(d, cell);
+            for (int k=0; k<lines.lengthOf(line); k++) {                                               // O(max{M, N})
+                lineScore_player[d][lines.cellOf(line, k)] = EMPTY_SCORE;
+                lineScore_opponent[d][lines.cellOf(line, k)] = EMPTY_SCORE;
+            }
         }
     }
 
     /**
-     * Riempie, nella matrice degli Score delle diagonali principali, la diagonale contenente la cella nella posizione indicata
-     * @implNote Costo (pessimo): O(min{M, N}*K)<br/>
-     *           Costo (ottimo): Θ(1)
+     * Calcola nel buffer lineScores gli score della linea indicata: la posizione i-esima indica il numero di mosse
+     * mancanti per vincere se si selezionasse la mossa in quella posizione.
+     * Le mosse mancanti di ciascuna finestra di K celle della linea sono contate sulle bitboard (una finestra è vincibile
+     * se non contiene pedine dell'avversario); ogni finestra vincibile viene poi propagata alle sue celle.
+     * Per K piccoli gli score sono letti dalle tabelle dei segmenti (vedi LinePatterns)
+     * @param toCheckState Lo stato da controllare (giocatore o avversario)
+     * @implNote Costo (pessimo): O(length * K)<br/>
+     *           Costo (K <= LinePatterns.MAX_TARGET): Θ(length)
      * */
-    private void fillMainDiagonalScoreAt(int x, int y) {
-        if (mainDiagonalScore_player[x][y] != null && mainDiagonalScore_opponent[x][y] != null) { return; }
+    private void computeLineScores(int line, MNKCellState toCheckState) {
+        if (patterns != null) {
+            computeLineScoresByPattern(line, toCheckState);
+            return;
+        }
 
-        Score[] moves;
-        final MNKCellState[] diagonal = matrix.getMainDiagonalAt(x, y);             // O(min{M, N})
+        final long[] own = toCheckState == PLAYER_STATE ? lineBits_player : lineBits_opponent;
+        final long[] other = toCheckState == PLAYER_STATE ? lineBits_opponent : lineBits_player;
+        final int base = lines.wordOffsetOf(line), length = lines.lengthOf(line);
+        final int[] s = lineScores;
 
-        Coord diagonalStart = matrix.getMainDiagonalStart(x, y);
-        int diagonalStartX = diagonalStart.x, diagonalStartY = diagonalStart.y;
+        for (int i=0; i<length; i++) {                                                                  // O(length)
+            s[i] = NOT_WINNABLE_LINE_SCORE;
 
-        // Giocatore
-        moves = getScoresArray(diagonal, PLAYER_STATE);                             // O(min{M, N}*K)
-        int i = diagonalStartX, j = diagonalStartY;
-        for (int k=0; k<moves.length; k++) {                                        // O(min{M, N})
-            setScore(mainDiagonalScore_player, i, j, moves[k]);
-            i++; j++;
-        }
+            // Finestra che termina in i
+            int start = i-(target-1);
+            if (start < 0 || countBits(other, base, start, i+1) != 0) { continue; }                    // Θ(K/64 + 1)
+            s[i] = packScore(target, target - countBits(own, base, start, i+1), start);
 
-        // Avversario
-        moves = getScoresArray(diagonal, OPPONENT_STATE);                           // O(min{M, N}*K)
-        i = diagonalStartX; j = diagonalStartY;
-        for (int k=0; k<moves.length; k++) {                                        // O(min{M, N})
-            setScore(mainDiagonalScore_opponent, i, j, moves[k]);
-            i++; j++;
+            // Progapazione
+            for (int k=1; k<=target-1 && i-k>=0; k++) {                                                 // O(K)
+                // Interrompo se incontro una mossa migliore della i-esima (necessita di meno mosse per vincere)
+                if (alignedOf(s[i-k]) == target && movesOf(s[i-k]) <= movesOf(s[i])) { break; }
+
+                s[i-k] = s[i];
+            }
         }
     }
 
     /**
-     * Riempie, nella matrice degli Score delle diagonali secondarie, la diagonale contenente la cella nella posizione indicata
-     * @implNote Costo (pessimo): O(min{M, N}*K)<br/>
-     *           Costo (ottimo): Θ(1)
+     * Calcola nel buffer lineScores gli score della linea indicata leggendoli dalle tabelle dei segmenti:
+     * la codifica del segmento di 2K-1 celle centrato nella cella viene aggiornata scorrendo la linea
+     * @param toCheckState Lo stato da controllare (giocatore o avversario)
+     * @implNote Costo: Θ(length)
      * */
-    private void fillSecondaryDiagonalScoreAt(int x, int y) {
-        if (secondaryDiagonalScore_player[x][y] != null && secondaryDiagonalScore_opponent[x][y] != null) { return; }
-
-        Score[] moves;
-        final MNKCellState[] diagonal = matrix.getSecondaryDiagonalAt(x, y);            // O(min{M, N})
+    private void computeLineScoresByPattern(int line, MNKCellState toCheckState) {
+        final long[] own = toCheckState == PLAYER_STATE ? lineBits_player : lineBits_opponent;
+        final long[] other = toCheckState == PLAYER_STATE ? lineBits_opponent : lineBits_player;
+        final int base = lines.wordOffsetOf(line), length = lines.lengthOf(line);
+        final int reach = target-1;
+        final int[] s = lineScores;
 
-        Coord diagonalStart = matrix.getSecondaryDiagonalStart(x, y);
-        int diagonalStartX = diagonalStart.x, diagonalStartY = diagonalStart.y;
-
-        // Giocatore
-        moves = getScoresArray(diagonal, PLAYER_STATE);                                 // O(min{M, N}*K)
-        int i = diagonalStartX, j = diagonalStartY;
-        for (int k=0; k<moves.length; k++) {                                            // O(min{M, N})
-            setScore(secondaryDiagonalScore_player, i, j, moves[k]);
-            i--; j++;
+        // Segmento della prima cella: posizioni da -(K-1) a K-1
+        int pattern = 0;
+        for (int p=-reach, weight=1; p<=reach; p++, weight*=3) {
+            pattern += digitAt(own, other, base, length, p) * weight;
         }
 
-        // Avversario
-        moves = getScoresArray(diagonal, OPPONENT_STATE);                               // O(min{M, N}*K)
-        i = diagonalStartX; j = diagonalStartY;
-        for (int k=0; k<moves.length; k++) {                                            // O(min{M, N})
-            setScore(secondaryDiagonalScore_opponent, i, j, moves[k]);
-            i--; j++;
+        for (int i=0; i<length; i++) {                                                              // Θ(length)
+            int moves = patterns.movesOf(pattern);
+            s[i] = moves == LinePatterns.NOT_WINNABLE ? NOT_WINNABLE_LINE_SCORE : packScore(target, moves, i - reach + patterns.startOf(pattern));
+
+            // Scorre il segmento di una cella
+            pattern = pattern / 3 + digitAt(own, other, base, length, i + reach + 1) * patterns.highDigit();
         }
     }
 
     /**
-     * Riempie in tutte le matrici degli score la riga/colonna/diagonale che include la posizione indicata
-     * @implNote Costo (pessimo): O(max{M, N}*K) = O(MK + NK)<br/>
-     *           Costo (ottimo): Θ(1)
+     * Restituisce la cifra della codifica dei segmenti per la posizione indicata della linea (BLOCKED fuori dalla linea)
+     * @implNote Costo: Θ(1)
      * */
-    public void generateMovesToWinAt(int x, int y) {
-                                                // Ottimo       Pessimo
-        fillRowScoreAt(x, y);                   // Θ(1)         O(N*K)
-        fillColumnScoreAt(x, y);                // Θ(1)         O(M*K)
-        fillMainDiagonalScoreAt(x, y);          // Θ(1)         O(min{M, N}*K)
-        fillSecondaryDiagonalScoreAt(x, y);     // Θ(1)         O(min{M, N}*K)
+    private static int digitAt(long[] own, long[] other, int base, int length, int position) {
+        if (position < 0 || position >= length) { return LinePatterns.BLOCKED; }
+        if ((other[base + (position >>> 6)] & (1L << position)) != 0) { return LinePatterns.BLOCKED; }
+        if ((own[base + (position >>> 6)] & (1L << position)) != 0) { return LinePatterns.OWN; }
+        return LinePatterns.FREE;
     }
 
     /**
-     * Riempie tutte le matrici degli score
-     * @implNote Costo (pessimo): O(M*N*K) = O(2*4*M*N*K) L'idea è che per generare tutti gli score, bisogna iterare su tutte le celle disponibili<br/>
+     * Riempie gli score della linea nella direzione indicata che contiene la cella nella posizione indicata
+     * @implNote Costo (pessimo): O(max{M, N}*K)<br/>
      *           Costo (ottimo): Θ(1)
      * */
-    public void generateGlobalMovesToWin() {
-        for (int x=0; x<columns; x++) { fillColumnScoreAt(x, 0); }                      // O(N * M*K)
+    private void fillLineScoreAt(int x, int y, int direction) {
+        final int cell = y*columns + x;
+        if (lineScore_player[direction][cell] != EMPTY_SCORE && lineScore_opponent[direction][cell] != EMPTY_SCORE) { return; }
 
-        for (int y=0; y<rows; y++) { fillRowScoreAt(0, y); }                            // O(M * N*K)
+        final int line = lines.lineOf(direction, cell);
+        fillLineScores(line, PLAYER_STATE, lineScore_player[direction]);               // O(max{M, N}*K)
+        fillLineScores(line, OPPONENT_STATE, lineScore_opponent[direction]);           // O(max{M, N}*K)
+    }
 
-        for (int y=0; y<rows; y++) { fillMainDiagonalScoreAt(0, y); }
-        for (int x=1; x<columns; x++) { fillMainDiagonalScoreAt(x, 0); }                // O((M+N-1) * min{M, N}*K) dove (M+N-1) è il numero di diagonali
+    /**
+     * Riempie gli score di una linea dal punto di vista di un giocatore, cercandoli prima nella cache
+     * @param score Matrice degli score della direzione della linea
+     * @implNote Costo (pessimo): O(max{M, N}*K)<br/>
+     *           Costo (ottimo): Θ(max{M, N}) [Linea nella cache]
+     * */
+    private void fillLineScores(int line, MNKCellState toCheckState, int[] score) {
+        final long[] own = toCheckState == PLAYER_STATE ? lineBits_player : lineBits_opponent;
+        final long[] other = toCheckState == PLAYER_STATE ? lineBits_opponent : lineBits_player;
+        final int base = lines.wordOffsetOf(line), length = lines.lengthOf(line);
+
+        if (lineScoreCache != null) {
+            long key = LineScoreCache.hashOf(own, other, base, length);
+            int entry = lineScoreCache.find(key, own, other, base, length);                 // Θ(max{M, N} / 64 + 1)
+            if (entry != LineScoreCache.MISS) {
+                for (int k=0; k<length; k++) { score[lines.cellOf(line, k)] = lineScoreCache.scoreOf(entry, k); }
+                return;
+            }
+            computeLineScores(line, toCheckState);                                          // O(max{M, N}*K)
+            lineScoreCache.store(key, own, other, base, length, lineScores);                // Θ(max{M, N})
+        }
+        else {
+            computeLineScores(line, toCheckState);                                          // O(max{M, N}*K)
+        }
 
-        for (int y=0; y<rows; y++) { fillSecondaryDiagonalScoreAt(columns-1, y); }
-        for (int x=columns-2; x>=0; x--) { fillSecondaryDiagonalScoreAt(x, 0); }        // O((M+N-1) * min{M, N}*K) dove (M+N-1) è il numero di diagonali
+        for (int k=0; k<length; k++) { score[lines.cellOf(line, k)] = lineScores[k]; }      // Θ(max{M, N})
     }
 
     /**
-     * Restituisce la matrice degli score della tipologia richiesta
-     * @implNote Costo: Θ(1)
+     * Riempie gli score della riga/colonna/diagonale che include la posizione indicata
+     * @implNote Costo (pessimo): O(max{M, N}*K) = O(MK + NK)<br/>
+     *           Costo (ottimo): Θ(1)
      * */
-    private Score[][] rowScoreFilter(MNKCellState toCheckState) {
-        if (toCheckState == PLAYER_STATE) { return rowScore_player; }
-        else { return rowScore_opponent; }
-    }
-    private Score[][] columnScoreFilter(MNKCellState toCheckState) {
-        if (toCheckState == PLAYER_STATE) { return columnScore_player; }
-        else { return columnScore_opponent; }
-    }
-    private Score[][] mainDiagonalScoreFilter(MNKCellState toCheckState) {
-        if (toCheckState == PLAYER_STATE) { return mainDiagonalScore_player; }
-        else { return mainDiagonalScore_opponent; }
-    }
-    private Score[][] secondaryDiagonalScoreFilter(MNKCellState toCheckState) {
-        if (toCheckState == PLAYER_STATE) { return secondaryDiagonalScore_player; }
-        else { return secondaryDiagonalScore_opponent; }
+    private void generateLineScoresAt(int x, int y) {
+                                                            // Ottimo       Pessimo
+        fillLineScoreAt(x, y, Lines.ROW);                   // Θ(1)         O(N*K)
+        fillLineScoreAt(x, y, Lines.COLUMN);                // Θ(1)         O(M*K)
+        fillLineScoreAt(x, y, Lines.MAIN_DIAGONAL);         // Θ(1)         O(min{M, N}*K)
+        fillLineScoreAt(x, y, Lines.SECONDARY_DIAGONAL);    // Θ(1)         O(min{M, N}*K)
     }
 
     /**
-     * Restituisce il numero minimo di mosse necessarie per vincere ad una determinata cella
+     * Restituisce il numero minimo di mosse necessarie per vincere con una finestra che contiene una determinata cella
+     * (NOT_WINNABLE_SCORE se nessuna finestra che la contiene è ancora vincibile)
      * @param toCheckState Indica lo stato della cella che si vuole controllare (giocatore o avversario)
-     * @implNote Costo: Θ(1) [GLI SCORE DEVONO ESSERE STATI GENERATI]
+     * @implNote Costo: Θ(K)
      * */
     public int getMovesToWinAt(int x, int y, MNKCellState toCheckState) {
-        Score[][] rowScore = rowScoreFilter(toCheckState);
-        Score[][] columnScore = columnScoreFilter(toCheckState);
-        Score[][] mainDiagonalScore = mainDiagonalScoreFilter(toCheckState);
-        Score[][] secondaryDiagonalScore = secondaryDiagonalScoreFilter(toCheckState);
+        final int[] own = toCheckState == PLAYER_STATE ? windowStones_player : windowStones_opponent;
+        final int[] other = toCheckState == PLAYER_STATE ? windowStones_opponent : windowStones_player;
 
-        return Math.min(
-            rowScore[x][y].moves,
-            Math.min(
-                columnScore[x][y].moves,
-                Math.min(
-                    mainDiagonalScore[x][y].moves,
-                    secondaryDiagonalScore[x][y].moves
-                )
-            )
-        );
+        int moves = NOT_WINNABLE_SCORE;
+        for (int window : windows.windowsOf(y*columns + x)) {                           // Θ(4K)
+            if (other[window] == 0) { moves = Math.min(moves, target - own[window]); }
+        }
+        return moves;
     }
 
 
     /**
-     * Restituisce un array contenente il numero di possibili modi per vincere
+     * Restituisce un array contenente il numero di possibili modi per vincere (finestre ancora vincibili)
      * @param toCheckState Indica lo stato della cella che si vuole controllare (giocatore o avversario)
-     * @return Array di interi dove se v[i] = q allora ci sono q modi per vincere che necessitano di un numero di i mosse
-     * @implNote Costo: O(M*N) = O(4*M*N)
-     *           [GLI SCORE DEVONO ESSERE STATI GENERATI]
+     * @return Array di interi dove se v[i] = q allora ci sono q finestre vincibili che necessitano di un numero di i mosse
+     * @implNote Costo: Θ(K)
      * */
     public int[] getAllPossibleWinningScenariosCount(MNKCellState toCheckState) {
-        int[] out = new int[target+1];
-        Score[][] rowScore = rowScoreFilter(toCheckState);
-        Score[][] columnScore = columnScoreFilter(toCheckState);
-        Score[][] mainDiagonalScore = mainDiagonalScoreFilter(toCheckState);
-        Score[][] secondaryDiagonalScore = secondaryDiagonalScoreFilter(toCheckState);
-        int prevStart; // Memorizza l'inizio dell'allineamento precedentemente elaborato
-
-        // Righe                                                             // Θ(M*N)
-        for (int y=0; y<rows; y++) { // Θ(M)
-            prevStart = -1;
-            for (int x=0; x<columns; x++) { // Θ(N)
-                if (rowScore[x][y].aligned != target) { continue; }
-                if (isFreeAt(x, y) && prevStart != rowScore[x][y].start) {
-                    prevStart = rowScore[x][y].start;
-                    out[rowScore[x][y].moves]++;
-                }
-            }
-        }
-
-        // Colonne                                                           // Θ(M*N)
-        for (int x=0; x<columns; x++) { // Θ(N)
-            prevStart = -1;
-            for (int y=0; y<rows; y++) { // Θ(M)
-                if (columnScore[x][y].aligned != target) { continue; }
-                if (isFreeAt(x, y) && prevStart != columnScore[x][y].start) {
-                    prevStart = columnScore[x][y].start;
-                    out[columnScore[x][y].moves]++;
-                }
-            }
-        }
-
-        // Diagonali principali                                              // O((M+N) * min{M, N})
-        for (int y=0; y<rows; y++) { // Θ(M)
-            int i=0, j=y;
-            prevStart = -1;
-            while (isValidCell(i, j)) { // O(min{M, N}) [Lunghezza max diagonale]
-                if (mainDiagonalScore[i][j].aligned == target && isFreeAt(i, j) && prevStart != mainDiagonalScore[i][j].start) {
-                    prevStart = mainDiagonalScore[i][j].start;
-                    out[mainDiagonalScore[i][j].moves]++;
-                }
-                i++; j++;
-            }
-        }
-        for (int x=1; x<columns; x++) { // Θ(N)
-            int i=x, j=0;
-            prevStart = -1;
-            while (isValidCell(i, j)) { // O(min{M, N}) [Lunghezza max diagonale]
-                if (mainDiagonalScore[i][j].aligned == target && isFreeAt(i, j) && isFreeAt(i, j) && prevStart != mainDiagonalScore[i][j].start) {
-                    prevStart = mainDiagonalScore[i][j].start;
-                    out[mainDiagonalScore[i][j].moves]++;
-                }
-                i++; j++;
-            }
-        }
-
-        // Diagonali secondaria                                              // O((M+N) * min{M, N})
-        for (int y=0; y<rows; y++) { // Θ(M)
-            int i=columns-1, j=y;
-            prevStart = -1;
-            while (isValidCell(i, j)) { // O(min{M, N}) [Lunghezza max diagonale]
-                if (secondaryDiagonalScore[i][j].aligned == target && isFreeAt(i, j) && prevStart != secondaryDiagonalScore[i][j].start) {
-                    prevStart = secondaryDiagonalScore[i][j].start;
-                    out[secondaryDiagonalScore[i][j].moves]++;
-                }
-                i--; j++;
-            }
-        }
-        for (int x=columns-2; x>=0; x--) { // Θ(N)
-            int i=x, j=0;
-            prevStart = -1;
-            while (isValidCell(i, j)) { // O(min{M, N}) [Lunghezza max diagonale]
-                if (secondaryDiagonalScore[i][j].aligned == target && isFreeAt(i, j) && prevStart != secondaryDiagonalScore[i][j].start) {
-                    prevStart = secondaryDiagonalScore[i][j].start;
-                    out[secondaryDiagonalScore[i][j].moves]++;
-                }
-                i--; j++;
-            }
-        }
+        final int[] live = toCheckState == PLAYER_STATE ? liveWindows_player : liveWindows_opponent;
 
+        int[] out = new int[target+1];
+        for (int moves=0; moves<=target; moves++) { out[moves] = live[target - moves]; }
         return out;
     }
 
@@ -490,55 +494,27 @@ public class BoardStatus {
      * Restituisce un array contenente il numero di possibili modi per vincere rispetto ad una determinata posizione
      * @param toCheckState Indica lo stato della cella che si vuole controllare (giocatore o avversario)
      * @return Array di interi dove se v[i] = q allora ci sono q modi per vincere che necessitano di un numero di i mosse
-     * @implNote Costo: O(max{M, N}) = O(M + N)
-     *           [GLI SCORE DEVONO ESSERE STATI GENERATI]
+     * @implNote Costo (pessimo): O(max{M, N}*K) = O(MK + NK)<br/>
+     *           Costo (ottimo): O(M + N) [Score delle linee già generati]
      * */
     public int[] getAllPossibleWinningScenariosCountAt(int toCheckX, int toCheckY, MNKCellState toCheckState) {
-        int[] out = new int[target+1];
-        Score[][] rowScore = rowScoreFilter(toCheckState);
-        Score[][] columnScore = columnScoreFilter(toCheckState);
-        Score[][] mainDiagonalScore = mainDiagonalScoreFilter(toCheckState);
-        Score[][] secondaryDiagonalScore = secondaryDiagonalScoreFilter(toCheckState);
-        int prevStart; // Memorizza l'inizio dell'allineamento precedentemente elaborato
-
-        prevStart = -1;
-        for (int x=0; x<columns; x++) {                                                     // Θ(N)
-            if (rowScore[x][toCheckY].aligned != target) { continue; }
-            if (isFreeAt(x, toCheckY) && prevStart != rowScore[x][toCheckY].start) {
-                prevStart = rowScore[x][toCheckY].start;
-                out[rowScore[x][toCheckY].moves]++;
-            }
-        }
-
-        prevStart = -1;
-        for (int y=0; y<rows; y++) {                                                        // Θ(M)
-            if (columnScore[toCheckX][y].aligned != target) { continue; }
-            if (isFreeAt(toCheckX, y) && prevStart != columnScore[toCheckX][y].start) {
-                prevStart = columnScore[toCheckX][y].start;
-                out[columnScore[toCheckX][y].moves]++;
-            }
-        }
+        generateLineScoresAt(toCheckX, toCheckY);                                           // O(MK + NK)
 
-        Coord diagonalStart = matrix.getMainDiagonalStart(toCheckX, toCheckY);
-        int i=diagonalStart.x, j=diagonalStart.y;
-        prevStart = -1;
-        while (isValidCell(i, j)) {                                                         // O(min{M, N})
-            if (mainDiagonalScore[i][j].aligned == target && isFreeAt(i, j) && prevStart != mainDiagonalScore[i][j].start) {
-                prevStart = mainDiagonalScore[i][j].start;
-                out[mainDiagonalScore[i][j].moves]++;
-            }
-            i++; j++;
-        }
-
-        diagonalStart = matrix.getSecondaryDiagonalStart(toCheckX, toCheckY);
-        i=diagonalStart.x; j=diagonalStart.y;
-        prevStart = -1;
-        while (isValidCell(i, j)) {                                                         // O(min{M, N})
-            if (secondaryDiagonalScore[i][j].aligned == target && isFreeAt(i, j) && prevStart != secondaryDiagonalScore[i][j].start) {
-                prevStart = secondaryDiagonalScore[i][j].start;
-                out[secondaryDiagonalScore[i][j].moves]++;
+        int[] out = new int[target+1];
+        final int[][] lineScore = toCheckState == PLAYER_STATE ? lineScore_player : lineScore_opponent;
+
+        for (int d=0; d<Lines.DIRECTIONS; d++) {
+            final int line = lines.lineOf(d, toCheckY*columns + toCheckX);
+            final int base = lines.wordOffsetOf(line);
+            int prevStart = -1; // Memorizza l'inizio dell'allineamento precedentemente elaborato
+
+            for (int k=0; k<lines.lengthOf(line); k++) {                                    // O(max{M, N})
+                int score = lineScore[d][lines.cellOf(line, k)];
+                if (alignedOf(score) == target && isFreeInLine(base, k) && prevStart != startOf(score)) {
+                    prevStart = startOf(score);
+                    out[movesOf(score)]++;
+                }
             }
-            i--; j++;
         }
 
         return out;
@@ -546,7 +522,7 @@ public class BoardStatus {
 
     /**
      * Restituisce lo stato della griglia controllando da una determinata posizione (vittoria, sconfitta, pareggio, partita aperta)
-     * @implNote Costo: Θ(1) [GLI SCORE DEVONO ESSERE STATI GENERATI]
+     * @implNote Costo: Θ(K)
      * */
     public MNKGameState statusAt(int x, int y) {
         if (matrix.getAt(x, y) == MNKCellState.FREE) { return MNKGameState.OPEN; }
@@ -2,6 +2,7 @@ package player;
 
 public class EstimatedPosition implements Comparable<EstimatedPosition> {
     public int x, y, score;
+    public int order;       // Punteggio di ordinamento da euristiche esterne (a parità di score e blocked)
     private int blocked;
 
     public EstimatedPosition(int x, int y, int score) {
@@ -9,6 +10,7 @@ public class EstimatedPosition implements Comparable<EstimatedPosition> {
         this.y = y;
         this.score = score;
         this.blocked = 0;
+        this.order = 0;
     }
 
     public EstimatedPosition(int x, int y, int score, int blocked) {
@@ -16,16 +18,22 @@ public class EstimatedPosition implements Comparable<EstimatedPosition> {
         this.y = y;
         this.score = score;
         this.blocked = blocked;
+        this.order = 0;
+    }
+
+    public int getBlocked() {
+        return blocked;
     }
 
     @Override
     public int compareTo(EstimatedPosition ep) {
         /*
-        * Ordinamento per score e poi per blocked
+        * Ordinamento per score, poi per blocked e infine per order
         * */
         int diff = ep.score - this.score;
 
         if (diff == 0) { diff = ep.blocked - this.blocked; }
+        if (diff == 0) { diff = Integer.compare(ep.order, this.order); }
 
         return diff;
     }
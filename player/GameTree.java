@@ -2,68 +2,486 @@ package player;
 
 import java.util.HashMap;
 import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
 import mnkgame.*;
 
 public class GameTree {
-    private Node root;
+    /**
+     * Valutazione alphabeta di un sotto-albero eseguibile in parallelo (Young Brothers Wait)
+     * */
+    private class AlphaBetaTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final int node;
+        private final boolean myNode;
+        private final int ply, alpha, beta;
+        private final AlphaBetaTask parent;
+        private volatile boolean cancelled;
+
+        public AlphaBetaTask(int node, boolean myNode, int ply, int alpha, int beta, AlphaBetaTask parent) {
+            this.node = node;
+            this.myNode = myNode;
+            this.ply = ply;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.parent = parent;
+            this.cancelled = false;
+        }
+
+        @Override
+        protected Integer compute() {
+            return parallelAlphabeta(node, myNode, ply, alpha, beta, this);
+        }
+
+        /**
+         * Interrompe il task (e, di conseguenza, i task da esso generati)
+         * */
+        public void abort() {
+            cancelled = true;
+            cancel(false);
+        }
+
+        /**
+         * Indica se il task o uno dei suoi antenati è stato interrotto da un taglio
+         * @implNote Costo: O(h)
+         * */
+        public boolean isAborted() {
+            for (AlphaBetaTask task = this; task != null; task = task.parent) {
+                if (task.cancelled) { return true; }
+            }
+            return false;
+        }
+    }
+
+    private final NodeStore nodes;
+    private int root;
+    private int rootPly;        // Numero di mosse giocate fino alla configurazione della radice
     private int rows, columns, target;
     private boolean first;
-    private boolean canExtend; // Indica se è possibile estendere le foglie dell'albero
+    private long deadline;      // Istante (in millisecondi) entro cui terminare la ricerca
+    private boolean canTimeout; // Indica se la ricerca può essere interrotta allo scadere del tempo
+    private volatile boolean stopRequested; // Indica se è stata richiesta l'interruzione della ricerca
+    private final boolean helper;           // Indica se l'albero è utilizzato da un thread di supporto (Lazy SMP)
+    private final LazySMP lazySMP;          // Thread di supporto alla ricerca (null se non in modalità Lazy SMP)
+    private final ForkJoinPool forkJoinPool;// Pool per la valutazione parallela dell'albero (null se non in modalità Young Brothers Wait)
+    private final SearchAlgorithm searchAlgorithm;  // Algoritmo utilizzato per valutare l'albero
+    private final boolean lateMoveReductions;       // Indica se le mosse non critiche meno promettenti vengono generate a profondità ridotta
+    private final LongAdder visitedNodes;   // Numero di nodi visitati durante la valutazione dell'albero nell'ultima ricerca
+    private long scoringTime;               // Tempo (in millisecondi) impiegato da alphabeta durante l'ultima ricerca
+    private Thread ponderThread;            // Thread che estende l'albero durante il turno dell'avversario (null se inattivo)
+    private int ponderedMoves, ponderHits;  // Mosse dell'avversario attese durante il pondering e quante erano già nell'albero
+    private long createdNodes;  // Numero di nodi generati durante l'ultima ricerca
+    private long dirtiedNodes;  // Numero di nodi interni marcati da rivalutare a seguito delle estensioni durante l'ultima ricerca
+    private long reducedNodes;  // Numero di mosse generate a profondità ridotta durante l'ultima ricerca
+    private long researchedNodes;   // Numero di mosse ridotte rigenerate a profondità piena durante l'ultima ricerca
+    private long solvedNodes;   // Numero di nodi interni il cui risultato è stato dimostrato durante l'ultima ricerca
+    private final LongAdder rescoredNodes;  // Numero di nodi interni rivalutati durante l'ultima ricerca
+    private final LongAdder reusedNodes;    // Numero di nodi il cui punteggio memorizzato è stato riutilizzato durante l'ultima ricerca
+    private int reachedDepth;   // Profondità raggiunta dall'ultima iterazione completata
 
     private final MNKCellState MY_STATE, OPPONENT_STATE;
     private final MNKGameState WIN_STATE, LOSS_STATE;
     private final int WIN_SCORE, LOSS_SCORE, DRAW_SCORE;
 
-    private int MAX_HEIGHT;     // Altezza dell'albero da mantenere a partire dall'attuale radice
-    private int EXTEND_HEIGHT;  // Numero di livelli da generare quando si estende l'albero
-    private final int MAX_EVAL; // Numero massimo di mosse da valutare per nodo (nel caso di mosse non critiche)
+    private int MAX_HEIGHT;     // Altezza dell'albero da generare per una nuova radice (prima iterazione)
+    private int EXTEND_HEIGHT;  // Numero di livelli da generare ad ogni iterazione di approfondimento
+    private int MAX_EVAL;       // Numero massimo di mosse da valutare per nodo (nel caso di mosse non critiche)
+    private final int helperId;
+    private long nodeCost;      // Tempo (in nanosecondi) stimato per generare e valutare un nodo (0 se non calibrato)
 
-    private final int PRIORITY_1, PRIORITY_2, PRIORITY_3, PRIORITY_4;
+    private final long TIMEOUT;             // Tempo a disposizione (in millisecondi) per selezionare una mossa
+    private final double TIMEOUT_MARGIN;    // Frazione del tempo a disposizione utilizzabile per la ricerca
+    private final int ASPIRATION_WINDOW;    // Ampiezza della finestra di aspirazione attorno al punteggio dell'iterazione precedente
+    private final double THREAT_SEARCH_MARGIN; // Frazione del tempo a disposizione utilizzabile dalla ricerca delle minacce
+    private final double SOLVER_MARGIN;        // Frazione del tempo a disposizione utilizzabile dal risolutore
+
+    private final MoveEstimator moveEstimator;
+    private final int PRIORITY_4;
+    private static final int NO_CUTOFF = Integer.MIN_VALUE;
+
+    private final TranspositionTable transpositionTable;
+    private final MoveHistory moveHistory;
+    private final LineScoreCache lineScoreCache;   // Score delle linee condivisi tra le griglie generate da questo albero
+    private final Symmetry symmetry;
+    private final ThreatSearch threatSearch;   // Ricerca delle minacce (null per i thread di supporto, che non scelgono mosse)
+    private final ProofNumberSearch solver;    // Risolutore esatto (null se la griglia è troppo grande)
+    private MNKGameState provenResult;         // Risultato dimostrato dal risolutore per la radice corrente (OPEN se non determinato)
+    private static final int TRANSPOSITION_TABLE_SIZE_LOG2 = 20;
+    private static final int PARALLEL_MIN_DEPTH = 3;   // Profondità minima di un sotto-albero per essere valutato in parallelo
+    private static final int SOLVER_MAX_CELLS = 64;         // Numero massimo di celle della griglia per utilizzare il risolutore
+    private static final int SOLVER_MAX_FREE_CELLS = 20;    // Numero massimo di celle libere alla radice per avviare il risolutore
+    private static final int SOLVER_TABLE_SIZE_LOG2 = 18;
+    private static final int LINE_SCORE_CACHE_SIZE_LOG2 = 12;
+    private static final double CALIBRATION_MARGIN = 0.1;   // Frazione del tempo a disposizione utilizzabile dalla calibrazione
+    private static final long CALIBRATION_MAX_TIME = 500;   // Durata massima (in millisecondi) della calibrazione
+    private static final double FIRST_ITERATION_BUDGET = 0.05;  // Frazione dei nodi generabili per mossa riservata alla prima iterazione
+    private static final int MIN_EVAL = 2, MAX_EVAL_LIMIT = 5;  // Limiti del numero di mosse non critiche da valutare per nodo
+    private static final int TARGET_DEPTH = 8;  // Profondità che l'approfondimento iterativo deve poter raggiungere con MAX_EVAL mosse per nodo
+    private static final int OFF_HEAP_CAPACITY = 1 << 22;   // Numero massimo di nodi dell'albero memorizzato fuori dallo heap
+    private static final int LMR_MIN_MOVES = 2;     // Mosse non critiche generate a profondità piena prima di applicare le riduzioni
+    private static final int LMR_REDUCTION = 2;     // Livelli sottratti alle mosse non critiche successive (pari: le foglie mantengono il giocatore di turno)
 
     /**
+     * @param timeout_in_secs Tempo a disposizione per selezionare una mossa
+     * @param threads Numero di thread da utilizzare per la ricerca
+     * @param parallelMode Modalità di utilizzo dei thread (se threads > 1)
+     * @param searchAlgorithm Algoritmo utilizzato per valutare l'albero
+     * @param lateMoveReductions Indica se applicare le riduzioni alle mosse non critiche meno promettenti
+     * @param nodeStorage Memoria utilizzata per i nodi dell'albero
+     * @implNote Costo: Θ(1) [Θ(OFF_HEAP_CAPACITY) con nodi fuori dallo heap]
+     * */
+    public GameTree(int M, int N, int K, boolean first, int timeout_in_secs, int threads, ParallelMode parallelMode, SearchAlgorithm searchAlgorithm, boolean lateMoveReductions, NodeStorage nodeStorage) {
+        this(M, N, K, first, timeout_in_secs, threads, parallelMode, searchAlgorithm, lateMoveReductions, new TranspositionTable(TRANSPOSITION_TABLE_SIZE_LOG2), 0,
+             nodeStorage == NodeStorage.OFF_HEAP ? new OffHeapNodeStore(N, OFF_HEAP_CAPACITY) : new NodeArena(N));
+    }
+
+    /**
+     * Albero di gioco che condivide la tabella delle trasposizioni
+     * @param helperId Identificativo del thread di supporto (0 per l'albero principale)
+     * @param nodes Memoria dei nodi dell'albero
      * @implNote Costo: Θ(1)
      * */
-    public GameTree(int M, int N, int K, boolean first) {
-        this.root = null;
+    GameTree(int M, int N, int K, boolean first, int timeout_in_secs, int threads, ParallelMode parallelMode, SearchAlgorithm searchAlgorithm, boolean lateMoveReductions, TranspositionTable transpositionTable, int helperId, NodeStore nodes) {
+        this.nodes = nodes;
+        this.root = NodeStore.NIL;
+        this.rootPly = 0;
         this.rows = M;
         this.columns = N;
         this.target = K;
 
         this.first = first;
-        this.canExtend = false;
+        this.deadline = Long.MAX_VALUE;
+        this.canTimeout = false;
+        this.stopRequested = false;
+        this.helper = helperId > 0;
+        this.ponderThread = null;
+        this.ponderedMoves = 0;
+        this.ponderHits = 0;
+        this.createdNodes = 0;
+        this.dirtiedNodes = 0;
+        this.reducedNodes = 0;
+        this.researchedNodes = 0;
+        this.solvedNodes = 0;
+        this.rescoredNodes = new LongAdder();
+        this.reusedNodes = new LongAdder();
+        this.reachedDepth = 0;
         this.MY_STATE = first ? MNKCellState.P1 : MNKCellState.P2;
         this.OPPONENT_STATE = first ? MNKCellState.P2 : MNKCellState.P1;
         this.WIN_STATE = first ? MNKGameState.WINP1 : MNKGameState.WINP2;
         this.LOSS_STATE = first ? MNKGameState.WINP2 : MNKGameState.WINP1;
 
-        this.EXTEND_HEIGHT = 2;
-        this.MAX_EVAL = 3;
+        this.helperId = helperId;
+        this.nodeCost = 0;
 
-        // Calcolo dell'altezza ottimale
-        int height = 1;
-        double x;
-        do {
-            x = Math.pow(MAX_EVAL, height) * height * (M*K + N*K + Math.log10(height));
-            height += 2;
-        }
-        while (x < 10000000);
-        this.MAX_HEIGHT = height-2;
+        this.TIMEOUT = timeout_in_secs * 1000L;
+        this.TIMEOUT_MARGIN = 0.8;
+        this.ASPIRATION_WINDOW = 1000;
+        this.THREAT_SEARCH_MARGIN = 0.1;
+        this.SOLVER_MARGIN = 0.3;
 
         this.WIN_SCORE = 10000000;
         this.LOSS_SCORE = -10000000;
         this.DRAW_SCORE = 0;
 
-        this.PRIORITY_1 = target * 10000;
-        this.PRIORITY_2 = target * 1000;
-        this.PRIORITY_3 = target * 200;
-        this.PRIORITY_4 = target * 100;
+        this.moveEstimator = new MoveEstimator(K);
+        this.PRIORITY_4 = moveEstimator.PRIORITY_4;
+
+        this.transpositionTable = transpositionTable;
+        this.moveHistory = new MoveHistory(M*N);
+        this.lineScoreCache = new LineScoreCache(LINE_SCORE_CACHE_SIZE_LOG2, Math.max(M, N));
+        this.symmetry = Symmetry.of(N, M);
+        this.threatSearch = !helper ? new ThreatSearch(N, M, K) : null;
+        this.solver = (!helper && M*N <= SOLVER_MAX_CELLS) ? new ProofNumberSearch(N, M, K, SOLVER_TABLE_SIZE_LOG2) : null;
+        this.provenResult = MNKGameState.OPEN;
+        this.lazySMP = (!helper && threads > 1 && parallelMode == ParallelMode.LAZY_SMP) ? new LazySMP(M, N, K, first, timeout_in_secs, threads-1, searchAlgorithm, lateMoveReductions, transpositionTable) : null;
+        this.forkJoinPool = (!helper && threads > 1 && parallelMode == ParallelMode.YOUNG_BROTHERS_WAIT) ? new ForkJoinPool(threads) : null;
+        this.searchAlgorithm = searchAlgorithm;
+        this.lateMoveReductions = lateMoveReductions;
+        this.visitedNodes = new LongAdder();
+        this.scoringTime = 0;
+
+        // La profondità effettiva viene determinata dal tempo a disposizione tramite approfondimento iterativo
+        // (la forma dell'albero può essere adattata alla macchina tramite calibrate)
+        setSearchShape(1, 2, 3);
     }
 
     /**
      * @implNote Costo: Θ(1)
      * */
     public boolean isEmpty() {
-        return root == null;
+        return root == NodeStore.NIL;
+    }
+
+    /**
+     * Imposta la forma dell'albero generato dalla ricerca.
+     * I thread di supporto variano profondità iniziale e ampiezza per esplorare parti diverse dell'albero
+     * @param maxHeight Altezza dell'albero generato per una nuova radice
+     * @param extendHeight Livelli generati ad ogni iterazione di approfondimento
+     * @param maxEval Numero massimo di mosse non critiche valutate per nodo
+     * @implNote Costo: Θ(1)
+     * */
+    void setSearchShape(int maxHeight, int extendHeight, int maxEval) {
+        this.MAX_HEIGHT = maxHeight;
+        this.EXTEND_HEIGHT = extendHeight;
+        this.MAX_EVAL = maxEval;
+
+        if (helper) {
+            this.MAX_HEIGHT += 2 * (helperId % 2);
+            this.MAX_EVAL += (helperId / 2) % 2;
+        }
+        if (lazySMP != null) { lazySMP.setSearchShape(maxHeight, extendHeight, maxEval); }
+    }
+
+    /**
+     * Misura il costo di generazione e valutazione di un nodo (createTree: statusAt, getAdjacency e valutazione euristica)
+     * su una configurazione di metà partita della griglia e adatta la forma dell'albero al tempo a disposizione:
+     * - MAX_EVAL: massimo numero di mosse per nodo con cui l'approfondimento iterativo può raggiungere TARGET_DEPTH
+     * - MAX_HEIGHT: massima altezza della prima iterazione (non interrompibile) entro FIRST_ITERATION_BUDGET
+     * - EXTEND_HEIGHT: 1 se anche con MIN_EVAL non si raggiunge TARGET_DEPTH (incrementi più fini), 2 altrimenti
+     * @implNote Costo: O(CALIBRATION_MAX_TIME)
+     * */
+    public void calibrate() {
+        long duration = Math.min(CALIBRATION_MAX_TIME, (long)(TIMEOUT * CALIBRATION_MARGIN));
+
+        // La prima metà del tempo serve da riscaldamento per il compilatore JIT e non viene misurata
+        benchmarkNodeCost(duration / 2);
+        nodeCost = benchmarkNodeCost(duration - duration / 2);
+        double budget = TIMEOUT * TIMEOUT_MARGIN * 1000000.0 / nodeCost;   // Nodi generabili per mossa
+
+        int maxEval = MIN_EVAL;
+        while (maxEval < MAX_EVAL_LIMIT && Math.pow(maxEval+1, TARGET_DEPTH) <= budget) { maxEval++; }
+
+        int maxHeight = 1;
+        while (Math.pow(maxEval, maxHeight+1) <= budget * FIRST_ITERATION_BUDGET) { maxHeight++; }
+
+        int extendHeight = Math.pow(MIN_EVAL, TARGET_DEPTH) <= budget ? 2 : 1;
+
+        setSearchShape(maxHeight, extendHeight, maxEval);
+    }
+
+    /**
+     * Genera l'albero di una configurazione di metà partita (pedine alternate attorno al centro della griglia)
+     * tramite approfondimento iterativo per il tempo indicato, poi lo scarta
+     * @return Tempo medio (in nanosecondi) per generare e valutare un nodo
+     * @implNote Costo: Θ(duration)
+     * */
+    private long benchmarkNodeCost(long duration) {
+        BoardStatus board = new BoardStatus(columns, rows, target, MY_STATE, lineScoreCache);
+        Random random = new Random(0);
+        int stones = Math.min(rows*columns / 2, 2*target);
+        int radius = Math.max(1, target);
+        MNKCellState state = MY_STATE;
+        for (int placed = 0, attempts = 0; placed < stones && attempts < 100*stones; attempts++) {
+            int x = Math.max(0, Math.min(columns-1, columns/2 + random.nextInt(2*radius+1) - radius));
+            int y = Math.max(0, Math.min(rows-1, rows/2 + random.nextInt(2*radius+1) - radius));
+            if (!board.isFreeAt(x, y)) { continue; }
+
+            board.setAt(x, y, state);
+            root = nodes.create(root, new MNKCell(y, x, state));
+            state = state == MY_STATE ? OPPONENT_STATE : MY_STATE;
+            placed++;
+        }
+
+        long start = System.nanoTime();
+        createdNodes = 0;
+        deadline = System.currentTimeMillis() + duration;
+        canTimeout = true;
+        try {
+            extendNode(root, MAX_HEIGHT);
+            while (extendLeaves(root)) {}
+        }
+        catch (SearchTimeoutException e) {
+            // Tempo di misurazione terminato
+        }
+        long elapsed = System.nanoTime() - start;
+        long cost = Math.max(1, elapsed / Math.max(1, createdNodes));
+
+        nodes.clear();
+        root = NodeStore.NIL;
+        createdNodes = 0;
+        canTimeout = false;
+        deadline = Long.MAX_VALUE;
+        return cost;
+    }
+
+    /**
+     * Restituisce la forma dell'albero generato dalla ricerca e il costo stimato di un nodo
+     * @implNote Costo: Θ(1)
+     * */
+    public String getSearchShape() {
+        return "MAX_HEIGHT=" + MAX_HEIGHT + " EXTEND_HEIGHT=" + EXTEND_HEIGHT + " MAX_EVAL=" + MAX_EVAL +
+               (nodeCost > 0 ? " (" + nodeCost / 1000 + " us per nodo)" : "");
+    }
+
+    /**
+     * Avvia il conteggio del tempo a disposizione per la mossa corrente
+     * @implNote Costo: Θ(1)
+     * */
+    public void startTimer() {
+        long start = System.currentTimeMillis();
+        stopPondering();
+        this.deadline = start + (long)(TIMEOUT * TIMEOUT_MARGIN);
+        transpositionTable.newSearch();
+        moveHistory.age();
+    }
+
+    /**
+     * Restituisce l'istante entro cui terminare la ricerca della mossa corrente
+     * @implNote Costo: Θ(1)
+     * */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Richiede l'interruzione della ricerca in corso (anche da un altro thread)
+     * @implNote Costo: Θ(1)
+     * */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Restituisce la frazione di mosse dell'avversario già presenti nell'albero al termine del pondering
+     * @implNote Costo: Θ(1)
+     * */
+    public double getPonderHitRate() {
+        return ponderedMoves > 0 ? (double)ponderHits / ponderedMoves : 0;
+    }
+
+    /**
+     * Restituisce il numero di nodi generati durante l'ultima ricerca
+     * @implNote Costo: Θ(1)
+     * */
+    public long getCreatedNodes() {
+        return createdNodes;
+    }
+
+    /**
+     * Restituisce il numero di nodi interni marcati da rivalutare durante l'ultima ricerca (antenati delle foglie estese)
+     * @implNote Costo: Θ(1)
+     * */
+    public long getDirtiedNodes() {
+        return dirtiedNodes;
+    }
+
+    /**
+     * Restituisce il numero di mosse generate a profondità ridotta durante l'ultima ricerca
+     * @implNote Costo: Θ(1)
+     * */
+    public long getReducedNodes() {
+        return reducedNodes;
+    }
+
+    /**
+     * Restituisce il numero di mosse ridotte rigenerate a profondità piena durante l'ultima ricerca (riduzioni fallite)
+     * @implNote Costo: Θ(1)
+     * */
+    public long getResearchedNodes() {
+        return researchedNodes;
+    }
+
+    /**
+     * Restituisce il numero di nodi interni il cui risultato è stato dimostrato durante l'ultima ricerca
+     * @implNote Costo: Θ(1)
+     * */
+    public long getSolvedNodes() {
+        return solvedNodes;
+    }
+
+    /**
+     * Restituisce la frazione di linee i cui score sono stati trovati nella cache durante l'ultima ricerca
+     * @implNote Costo: Θ(1)
+     * */
+    public double getLineScoreHitRate() {
+        return lineScoreCache.getHitRate();
+    }
+
+    /**
+     * Restituisce il numero di nodi interni rivalutati da alphabeta durante l'ultima ricerca
+     * @implNote Costo: O(threads)
+     * */
+    public long getRescoredNodes() {
+        return rescoredNodes.sum();
+    }
+
+    /**
+     * Restituisce il numero di nodi il cui punteggio memorizzato è stato riutilizzato senza visitarne il sotto-albero
+     * @implNote Costo: O(threads)
+     * */
+    public long getReusedNodes() {
+        return reusedNodes.sum();
+    }
+
+    /**
+     * Restituisce il numero di nodi attualmente allocati per l'albero
+     * @implNote Costo: Θ(1)
+     * */
+    public int getAllocatedNodes() {
+        return nodes.size();
+    }
+
+    /**
+     * Restituisce il numero di nodi visitati durante la valutazione dell'albero nell'ultima ricerca
+     * @implNote Costo: O(threads)
+     * */
+    public long getVisitedNodes() {
+        return visitedNodes.sum();
+    }
+
+    /**
+     * Restituisce il tempo (in millisecondi) impiegato da alphabeta durante l'ultima ricerca
+     * @implNote Costo: Θ(1)
+     * */
+    public long getScoringTime() {
+        return scoringTime;
+    }
+
+    /**
+     * Restituisce il risultato dimostrato dal risolutore all'ultima mossa (OPEN se non determinato)
+     * @implNote Costo: Θ(1)
+     * */
+    public MNKGameState getProvenResult() {
+        return provenResult;
+    }
+
+    /**
+     * Restituisce la profondità raggiunta dall'ultima iterazione completata
+     * @implNote Costo: Θ(1)
+     * */
+    public int getReachedDepth() {
+        return reachedDepth;
+    }
+
+    /**
+     * Indica se il tempo a disposizione per la mossa corrente è terminato
+     * @implNote Costo: Θ(1)
+     * */
+    private boolean isTimeOver() {
+        return System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * Interrompe la ricerca se il tempo a disposizione è terminato
+     * @implNote Costo: Θ(1)
+     * */
+    private void checkTimeout() {
+        if (stopRequested || (canTimeout && isTimeOver())) {
+            throw new SearchTimeoutException();
+        }
+    }
+
+    /**
+     * Interrompe la valutazione dell'albero se ne è stata richiesta l'interruzione (es. al termine del pondering)
+     * @implNote Costo: Θ(1)
+     * */
+    private void checkStop() {
+        if (stopRequested) {
+            throw new SearchTimeoutException();
+        }
     }
 
     /**
@@ -77,66 +495,349 @@ public class GameTree {
      * @implNote Costo (pessimo): O(p^h)         p = numero medio di mosse  |  h = altezza albero
      * @implNote Costo (ottimo): O(sqrt(p^h))
      * */
-    private int alphabeta(Node node, boolean myNode, int alpha, int beta) {
-        if (node.isLeaf()) {
-            return node.score;
+    private int alphabeta(int node, boolean myNode, int ply, int alpha, int beta) {
+        checkStop();
+        visitedNodes.increment();
+
+        if (nodes.isLeaf(node)) {
+            return nodes.scoreOf(node);
         }
         else {
+            int ttScore = probeCutoff(node, alpha, beta);
+            if (ttScore != NO_CUTOFF) { return ttScore; }
+
+            final int alphaOrig = alpha, betaOrig = beta;
             int eval;
-            for (Node child : node.children) { child.alphabeta = false; } // Marca tutti i nodi come non elaborati da alphabeta
+            int best = NodeStore.NIL;
+            for (int child = nodes.firstChildOf(node); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) { nodes.setAlphabeta(child, false); } // Marca tutti i nodi come non elaborati da alphabeta
 
             if (myNode) {
                 eval = Integer.MAX_VALUE;
-                for (Node child : node.children) {
-                    eval = Math.min(eval, alphabeta(child, false, alpha, beta));
+                for (int child = nodes.firstChildOf(node); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+                    int childScore = alphabeta(child, false, ply+1, alpha, beta);
+                    if (childScore < eval) { eval = childScore; best = child; }
                     beta = Math.min(eval, beta);
-                    child.alphabeta = true;
-                    if (beta <= alpha) { break; }
+                    nodes.setAlphabeta(child, true);
+                    if (beta <= alpha) { recordCutoff(node, child, ply+1); break; }
                 }
             }
             else {
                 eval = Integer.MIN_VALUE;
-                for (Node child : node.children) {
-                    eval = Math.max(eval, alphabeta(child, true, alpha, beta));
+                for (int child = nodes.firstChildOf(node); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+                    int childScore = alphabeta(child, true, ply+1, alpha, beta);
+                    if (childScore > eval) { eval = childScore; best = child; }
                     alpha = Math.max(eval, alpha);
-                    child.alphabeta = true;
-                    if (beta <= alpha) { break; }
+                    nodes.setAlphabeta(child, true);
+                    if (beta <= alpha) { recordCutoff(node, child, ply+1); break; }
                 }
             }
 
-            node.score = eval;
+            storeResult(node, alphaOrig, betaOrig, eval, best);
             return eval;
         }
     }
 
     /**
-     * Imposta il punteggio di un nodo contenente uno stato di gioco terminale
+     * Principal Variation Search: il primo figlio viene valutato con la finestra completa, i successivi con una finestra nulla
+     * (sufficiente a dimostrare che non sono migliori) e rivalutati solo se la dimostrazione fallisce
+     * @implNote Costo (pessimo): O(p^h)
+     * @implNote Costo (ottimo): O(sqrt(p^h))
+     * */
+    private int pvs(int node, boolean myNode, int ply, int alpha, int beta) {
+        checkStop();
+        visitedNodes.increment();
+
+        if (nodes.isLeaf(node)) {
+            return nodes.scoreOf(node);
+        }
+        else {
+            int ttScore = probeCutoff(node, alpha, beta);
+            if (ttScore != NO_CUTOFF) { return ttScore; }
+
+            final int alphaOrig = alpha, betaOrig = beta;
+            int eval = myNode ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+            int best = NodeStore.NIL;
+            for (int child = nodes.firstChildOf(node); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) { nodes.setAlphabeta(child, false); }
+
+            for (int child = nodes.firstChildOf(node); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+                int childScore;
+
+                if (best == NodeStore.NIL) {
+                    childScore = pvs(child, !myNode, ply+1, alpha, beta);
+                }
+                else if (myNode) {
+                    childScore = pvs(child, false, ply+1, beta-1, beta);
+                    if (childScore > alpha && childScore < beta) { childScore = pvs(child, false, ply+1, alpha, childScore); }
+                }
+                else {
+                    childScore = pvs(child, true, ply+1, alpha, alpha+1);
+                    if (childScore > alpha && childScore < beta) { childScore = pvs(child, true, ply+1, childScore, beta); }
+                }
+
+                if (best == NodeStore.NIL || (myNode ? childScore < eval : childScore > eval)) { eval = childScore; best = child; }
+                if (myNode) { beta = Math.min(eval, beta); }
+                else { alpha = Math.max(eval, alpha); }
+                nodes.setAlphabeta(child, true);
+                if (beta <= alpha) { recordCutoff(node, child, ply+1); break; }
+            }
+
+            storeResult(node, alphaOrig, betaOrig, eval, best);
+            return eval;
+        }
+    }
+
+    /**
+     * MTD(f): converge al valore minimax della radice tramite valutazioni a finestra nulla,
+     * partendo da una stima (i limiti intermedi sono riutilizzati tramite la tabella delle trasposizioni)
+     * @param guess Stima iniziale del valore della radice
+     * @implNote Costo (pessimo): O(p^h * passate)
+     * */
+    private int mtdf(int guess) {
+        int score = guess;
+        int lowerBound = LOSS_SCORE, upperBound = WIN_SCORE;
+
+        while (lowerBound < upperBound) {
+            int beta = (score == lowerBound) ? score+1 : score;
+            score = search(beta-1, beta);
+            if (score < beta) { upperBound = score; }
+            else { lowerBound = score; }
+        }
+
+        // Valutazione finale attorno al valore trovato per ordinare correttamente i figli della radice
+        return search(score-1, score+1);
+    }
+
+    /**
+     * Cerca nella tabella delle trasposizioni un risultato che permetta di non valutare il nodo
+     * @return Il punteggio del nodo, NO_CUTOFF se il nodo deve essere valutato
+     * @implNote Costo: Θ(1)
+     * */
+    private int probeCutoff(int node, int alpha, int beta) {
+        // La radice va sempre elaborata per marcare i figli
+        if (node == root) { return NO_CUTOFF; }
+
+        // Risultato dimostrato: il punteggio è esatto e il sotto-albero non va più rivalutato
+        if (nodes.isSolved(node)) {
+            reusedNodes.increment();
+            return nodes.scoreOf(node);
+        }
+
+        // Sotto-albero invariato dall'ultima valutazione: il punteggio memorizzato nel nodo è ancora un limite valido
+        if (!nodes.isDirty(node)) {
+            int score = nodes.scoreOf(node);
+            int bound = nodes.boundOf(node);
+
+            if (bound == TranspositionTable.EXACT ||
+                (bound == TranspositionTable.LOWER_BOUND && score >= beta) ||
+                (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                reusedNodes.increment();
+                return score;
+            }
+        }
+
+        long entry = transpositionTable.probe(nodes.hashOf(node));
+        if (entry != TranspositionTable.MISS && TranspositionTable.depthOf(entry) >= nodes.depthOf(node)) {
+            int ttScore = TranspositionTable.scoreOf(entry);
+            int bound = TranspositionTable.boundOf(entry);
+
+            if (bound == TranspositionTable.EXACT ||
+                (bound == TranspositionTable.LOWER_BOUND && ttScore >= beta) ||
+                (bound == TranspositionTable.UPPER_BOUND && ttScore <= alpha)) {
+                nodes.setScore(node, ttScore);
+                nodes.setBound(node, bound);
+                return ttScore;
+            }
+        }
+        return NO_CUTOFF;
+    }
+
+    /**
+     * Aggiorna le euristiche di ordinamento con la mossa che ha causato un taglio
+     * @param ply Numero di mosse giocate dopo la mossa del figlio
+     * @implNote Costo: Θ(1)
+     * */
+    private void recordCutoff(int node, int child, int ply) {
+        moveHistory.recordCutoff(ply, nodes.stateOf(child), nodes.moveOf(child), nodes.moveOf(node), nodes.depthOf(node));
+    }
+
+    /**
+     * Memorizza il punteggio di un nodo valutato con la finestra [alpha, beta]
+     * @implNote Costo: Θ(1)
+     * */
+    private void storeResult(int node, int alpha, int beta, int eval, int best) {
+        int bound = eval <= alpha ? TranspositionTable.UPPER_BOUND : (eval >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT);
+        transpositionTable.store(nodes.hashOf(node), nodes.depthOf(node), bound, eval, canonicalMoveOf(node, best));
+        nodes.setScore(node, eval);
+        nodes.setBound(node, bound);
+        nodes.setDirty(node, false);
+        rescoredNodes.increment();
+    }
+
+    /**
+     * Alphabeta parallelo (Young Brothers Wait): il primo figlio viene valutato sequenzialmente,
+     * i fratelli successivi vengono valutati in parallelo con la finestra ottenuta dal primo figlio.
+     * Con PVS i fratelli vengono valutati con una finestra nulla e rivalutati con la finestra corrente
+     * se la dimostrazione fallisce. Un taglio interrompe i task dei fratelli ancora in esecuzione
+     * @implNote Costo (pessimo): O(p^h / threads)
+     * */
+    private int parallelAlphabeta(int node, boolean myNode, int ply, int alpha, int beta, AlphaBetaTask task) {
+        if (nodes.isLeaf(node) || nodes.depthOf(node) < PARALLEL_MIN_DEPTH) { return sequentialSearch(node, myNode, ply, alpha, beta); }  // Sotto-albero troppo piccolo
+        if (task.isAborted()) { return nodes.scoreOf(node); }                                                                      // Risultato non più necessario
+        checkStop();
+        visitedNodes.increment();
+
+        int ttScore = probeCutoff(node, alpha, beta);
+        if (ttScore != NO_CUTOFF) { return ttScore; }
+
+        final int alphaOrig = alpha, betaOrig = beta;
+        int childrenCount = 0;
+        for (int child = nodes.firstChildOf(node); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) { nodes.setAlphabeta(child, false); childrenCount++; }
+
+        // Fratello maggiore: valutato sequenzialmente per ottenere un limite
+        int best = nodes.firstChildOf(node);
+        int eval = parallelAlphabeta(best, !myNode, ply+1, alpha, beta, task);
+        nodes.setAlphabeta(best, true);
+        if (myNode) { beta = Math.min(eval, beta); }
+        else { alpha = Math.max(eval, alpha); }
+        if (beta <= alpha) { recordCutoff(node, best, ply+1); }
+
+        if (beta > alpha && childrenCount > 1) {
+            // Fratelli minori: valutati in parallelo
+            AlphaBetaTask[] siblings = new AlphaBetaTask[childrenCount-1];
+            int[] siblingNodes = new int[siblings.length];
+            int i = 0;
+            for (int child = nodes.nextSiblingOf(best); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+                siblingNodes[i] = child;
+                if (searchAlgorithm != SearchAlgorithm.PVS) { siblings[i] = new AlphaBetaTask(child, !myNode, ply+1, alpha, beta, task); }
+                else if (myNode) { siblings[i] = new AlphaBetaTask(child, false, ply+1, beta-1, beta, task); }
+                else { siblings[i] = new AlphaBetaTask(child, true, ply+1, alpha, alpha+1, task); }
+                siblings[i].fork();
+                i++;
+            }
+
+            try {
+                boolean cutoff = false;
+                for (i=0; i<siblings.length; i++) {
+                    if (cutoff) {
+                        siblings[i].abort();
+                        continue;
+                    }
+
+                    int childScore = siblings[i].join();
+                    if (isFailedProof(siblings[i], myNode, childScore, alpha, beta)) {
+                        // Il fratello potrebbe migliorare il risultato: rivalutato con la finestra corrente
+                        childScore = parallelAlphabeta(siblingNodes[i], !myNode, ply+1, alpha, beta, task);
+                    }
+                    if (myNode ? childScore < eval : childScore > eval) { eval = childScore; best = siblingNodes[i]; }
+                    if (myNode) { beta = Math.min(eval, beta); }
+                    else { alpha = Math.max(eval, alpha); }
+                    nodes.setAlphabeta(siblingNodes[i], true);
+                    cutoff = beta <= alpha;
+                    if (cutoff) { recordCutoff(node, siblingNodes[i], ply+1); }
+                }
+            }
+            finally {
+                // Attende la terminazione dei task interrotti prima di restituire il controllo
+                // (anche se la valutazione viene interrotta, nessun task deve continuare a modificare l'albero)
+                for (AlphaBetaTask sibling : siblings) { sibling.quietlyJoin(); }
+            }
+        }
+
+        if (task.isAborted()) { return eval; }  // Il risultato parziale non va memorizzato
+        storeResult(node, alphaOrig, betaOrig, eval, best);
+        return eval;
+    }
+
+    /**
+     * Indica se la valutazione a finestra nulla di un fratello minore (PVS) non dimostra che il fratello non è migliore
+     * rispetto alla finestra corrente (che può essere stata ristretta dai fratelli valutati nel frattempo)
+     * @implNote Costo: Θ(1)
+     * */
+    private boolean isFailedProof(AlphaBetaTask sibling, boolean myNode, int childScore, int alpha, int beta) {
+        if (searchAlgorithm != SearchAlgorithm.PVS) { return false; }
+        return myNode ? childScore < sibling.beta && childScore > alpha : childScore > sibling.alpha && childScore < beta;
+    }
+
+    /**
+     * Valuta sequenzialmente il sotto-albero radicato nel nodo con l'algoritmo scelto
+     * @implNote Costo (pessimo): O(p^h)
+     * */
+    private int sequentialSearch(int node, boolean myNode, int ply, int alpha, int beta) {
+        return searchAlgorithm == SearchAlgorithm.PVS ? pvs(node, myNode, ply, alpha, beta) : alphabeta(node, myNode, ply, alpha, beta);
+    }
+
+    /**
+     * Valuta l'albero radicato nella radice corrente con la finestra [alpha, beta]
+     * @implNote Costo (pessimo): O(p^h)
+     * */
+    private int search(int alpha, int beta) {
+        long start = System.currentTimeMillis();
+        boolean myNode = nodes.stateOf(root) == MY_STATE;
+        int score;
+
+        if (forkJoinPool != null) {
+            score = forkJoinPool.invoke(new AlphaBetaTask(root, myNode, rootPly, alpha, beta, null));
+        }
+        else {
+            score = sequentialSearch(root, myNode, rootPly, alpha, beta);
+        }
+
+        scoringTime += System.currentTimeMillis() - start;
+        return score;
+    }
+
+    /**
+     * Imposta il punteggio di un nodo contenente uno stato di gioco terminale.
+     * Vittorie e sconfitte includono il numero di mosse della partita: a parità di risultato si preferisce vincere prima
+     * e perdere dopo (il punteggio dipende solo dalla configurazione e resta valido per la tabella delle trasposizioni)
+     * @param ply Numero di mosse giocate fino al termine della partita
      * @implNote Costo: Θ(1)
      * */
-    private void setScoreOf(Node node, MNKGameState gameState) {
+    private void setScoreOf(int node, MNKGameState gameState, int ply) {
         if (gameState == WIN_STATE) {
-            node.score = WIN_SCORE;
+            nodes.setScore(node, WIN_SCORE - ply);
         }
         else if (gameState == LOSS_STATE) {
-            node.score = LOSS_SCORE;
+            nodes.setScore(node, LOSS_SCORE + ply);
         }
         else {
-            node.score = DRAW_SCORE;
+            nodes.setScore(node, DRAW_SCORE);
         }
-        node.endState = true;
+        nodes.setSolved(node, true);
+        nodes.setDepth(node, TranspositionTable.MAX_DEPTH);
+    }
+
+    /**
+     * Indica se il punteggio corrisponde ad una vittoria dimostrata
+     * @implNote Costo: Θ(1)
+     * */
+    private boolean isWinScore(int score) {
+        return score >= WIN_SCORE - rows*columns;
+    }
+
+    /**
+     * Indica se il punteggio corrisponde ad una sconfitta dimostrata
+     * @implNote Costo: Θ(1)
+     * */
+    private boolean isLossScore(int score) {
+        return score <= LOSS_SCORE + rows*columns;
     }
 
     /**
      * Imposta un punteggio euristico alla configurazione di un nodo
-     * @implNote Costo: O(M*N*K)
+     * @implNote Costo: Θ(K)
      */
-    private void setHeuristicScoreOf(Node node, BoardStatus board, MNKCellState whoHasToPlay) {
+    private void setHeuristicScoreOf(int node, BoardStatus board, MNKCellState whoHasToPlay) {
         int playerScore = 0, opponentScore = 0;
         int score = 0;
 
-        board.generateGlobalMovesToWin();                                                                       // O(M*N*K)
-        int[] playerPossibilities = board.getAllPossibleWinningScenariosCount(MY_STATE);                        // O(M*N)
-        int[] opponentPossibilities = board.getAllPossibleWinningScenariosCount(OPPONENT_STATE);                // O(M*N)
+        if (board.isDead()) { // Pareggio dimostrato
+            setScoreOf(node, MNKGameState.DRAW, board.size());
+            return;
+        }
+
+        int[] playerPossibilities = board.getAllPossibleWinningScenariosCount(MY_STATE);                        // Θ(K)
+        int[] opponentPossibilities = board.getAllPossibleWinningScenariosCount(OPPONENT_STATE);                // Θ(K)
 
         /*
         * Calcola il punteggio considerando il numero di scenari a cui mancano da 1 a 3 mosse per vincere
@@ -148,108 +849,111 @@ public class GameTree {
         }
 
         if (whoHasToPlay == MY_STATE && playerPossibilities[1] != 0) { // Vittoria immediata
-            score = WIN_SCORE;
+            setScoreOf(node, WIN_STATE, board.size() + 1);
         }
         else if (whoHasToPlay == OPPONENT_STATE && opponentPossibilities[1] != 0) { // Sconfitta immediata
-            score = LOSS_SCORE;
+            setScoreOf(node, LOSS_STATE, board.size() + 1);
         }
         else { // Valuazione euristica
             score = playerScore - opponentScore;
+            nodes.setScore(node, score);
+            nodes.setDepth(node, 0);
         }
-
-        node.score = score;
     }
 
     /**
      * Restituisce una coda con priorità contenente le celle adiacenti a quelle già piazzate, ordinate per importanza
      * @implNote Costo: O( h(MK + NK) + h*log(h) ) = O( h(MK + NK + log(h)) )
      */
-    private PriorityQueue<EstimatedPosition> getAdjacency(Node node, BoardStatus board, MNKCellState state) {
+    private PriorityQueue<EstimatedPosition> getAdjacency(int node, BoardStatus board, MNKCellState state) {
         HashMap<Coord, Boolean> visited = new HashMap<>();
         PriorityQueue<EstimatedPosition> out = new PriorityQueue<>();
 
         final MNKCellState PLAYING_STATE = state;
         final MNKCellState WAITING_STATE = state == MY_STATE ? OPPONENT_STATE : MY_STATE;
 
-        Node iter = node;
+        // Mossa migliore di una precedente valutazione della stessa configurazione
+        long entry = transpositionTable.probe(nodes.hashOf(node));
+        int hintMove = entry != TranspositionTable.MISS ? TranspositionTable.moveOf(entry) : TranspositionTable.NO_MOVE;
+        if (hintMove != TranspositionTable.NO_MOVE) { hintMove = symmetry.invert(nodes.symmetryOf(node), hintMove); }
+
+        // Mosse che hanno causato tagli in posizioni simili
+        int ply = 1;
+        for (int iter = nodes.parentOf(node); iter != NodeStore.NIL; iter = nodes.parentOf(iter)) { ply++; }
+        int killer1 = moveHistory.killer(ply+1, 0);
+        int killer2 = moveHistory.killer(ply+1, 1);
+        int counterMove = moveHistory.counterMove(PLAYING_STATE, nodes.moveOf(node));
+
+        int iter = node;
 
         // Per ogni mossa, valuta le celle circostanti libere
-        while (iter != null) {                                                                                                      // -|
+        while (iter != NodeStore.NIL) {                                                                                             // -|
             for (int i = -1; i <= 1; i++) {                                                                                         //  | O(8 * h) = O(h)
                 for (int j = -1; j <= 1; j++) {                                                                                     //  | h = altezza albero
                     if (i == 0 && j == 0) { continue; }                                                                             // -|
 
-                    int toVisit_x = iter.action.j + j;
-                    int toVisit_y = iter.action.i + i;
+                    int toVisit_x = nodes.columnOf(iter) + j;
+                    int toVisit_y = nodes.rowOf(iter) + i;
                                                                                                                                     // O(1) utilizzando il costo medio delle hash table
                     if (!isValidCell(toVisit_x, toVisit_y) || !board.isFreeAt(toVisit_x, toVisit_y) || visited.get(new Coord(toVisit_x, toVisit_y)) != null) { continue; }
                     visited.put(new Coord(toVisit_x, toVisit_y), true);                                                             // O(1) utilizzando il costo medio delle hash table
 
-                    /*
-                     * Ordine di priorità:
-                     * - Mossa vincente
-                     * - Blocco una mossa vincente dell'avversario
-                     * - Imposto un vicolo cieco a mio favore
-                     * - Blocco un vicolo cieco dell'avversario
-                     * - Scelgo la mossa (possibilmente) migliore per me
-                     * */
-
-                    board.generateMovesToWinAt(toVisit_x, toVisit_y);                                                               // O(MK + NK)
-                    int currentPlayerMovesToWin = board.getMovesToWinAt(toVisit_x, toVisit_y, PLAYING_STATE);
-                    int oppositeMovesToWin = board.getMovesToWinAt(toVisit_x, toVisit_y, WAITING_STATE);
+                    EstimatedPosition estimation = moveEstimator.estimate(board, toVisit_x, toVisit_y, PLAYING_STATE, WAITING_STATE);  // O(MK + NK)
 
-                    EstimatedPosition estimation = null;
-
-                    // Mossa vincente per me
-                    if (currentPlayerMovesToWin == 1) {
-                        estimation = new EstimatedPosition(toVisit_x, toVisit_y, PRIORITY_1);
-                    }
-                    // Blocca mossa vincente dell'avversario
-                    else if (oppositeMovesToWin == 1) {
-                        estimation =  new EstimatedPosition(toVisit_x, toVisit_y, PRIORITY_2);
-                    }
-
-                    // Cerco un vicolo cieco a mio favore
-                    if (currentPlayerMovesToWin == 2) {
-                        board.setAt(toVisit_x, toVisit_y, PLAYING_STATE);                                                           // O(M + N)
-                        board.generateMovesToWinAt(toVisit_x, toVisit_y);                                                           // O(MK + NK)
-                        int[] possibilities = board.getAllPossibleWinningScenariosCountAt(toVisit_x, toVisit_y, PLAYING_STATE);     // O(M + N)
-                        board.removeAt(toVisit_x, toVisit_y);                                                                       // O(M + N)
-
-                        if (possibilities[1] > 1) {
-                            estimation = new EstimatedPosition(toVisit_x, toVisit_y, PRIORITY_3);
-                        }
-                    }
-
-                    // Cerco un vicolo cieco a mio sfavore
-                    if (estimation == null && oppositeMovesToWin == 2) {
-                        board.setAt(toVisit_x, toVisit_y, WAITING_STATE);                                                           // O(M + N)
-                        board.generateMovesToWinAt(toVisit_x, toVisit_y);                                                           // O(MK + NK)
-                        int[] possibilities = board.getAllPossibleWinningScenariosCountAt(toVisit_x, toVisit_y, WAITING_STATE);     // O(M + N)
-                        board.removeAt(toVisit_x, toVisit_y);                                                                       // O(M + N)
-
-                        if (possibilities[1] > 1) {
-                            estimation = new EstimatedPosition(toVisit_x, toVisit_y, PRIORITY_4);
-                        }
-                    }
-
-                    // Valuto la qualità della mossa non critica
-                    if (estimation == null) {
-                        int aligned = target - currentPlayerMovesToWin + 1;
-                        int blocked = target - oppositeMovesToWin;
-
-                        estimation = new EstimatedPosition(toVisit_x, toVisit_y, aligned, blocked);
+                    if (!moveEstimator.isCritical(estimation)) {
+                        // Le mosse suggerite dalla tabella delle trasposizioni e dai tagli precedono le altre mosse non critiche
+                        int move = toVisit_y*columns + toVisit_x;
+                        if (move == hintMove) { estimation.score = PRIORITY_4 - 1; }
+                        else if (move == killer1) { estimation.score = PRIORITY_4 - 2; }
+                        else if (move == killer2) { estimation.score = PRIORITY_4 - 3; }
+                        else if (move == counterMove) { estimation.score = PRIORITY_4 - 4; }
+                        estimation.order = moveHistory.historyOf(PLAYING_STATE, move);
                     }
 
                     out.add(estimation);                                                                                            // Costo complessivo: O( log((8h)!) ) = O(log(h!)) = O( h*log(h) )
                 }
             }
-            iter = iter.parent;
+            iter = nodes.parentOf(iter);
         }
 
         return out;
     }
 
+    /**
+     * Indica se la cella è l'immagine, tramite una simmetria che lascia invariata la configurazione, di una mossa già generata.
+     * In caso contrario la cella viene aggiunta alle mosse generate
+     * @param invariant Simmetrie che lasciano invariata la configurazione (bit s impostato)
+     * @implNote Costo: Θ(1) [Al più 8 simmetrie]
+     * */
+    private boolean isSymmetricDuplicate(int cell, int invariant, boolean[] generated) {
+        for (int s=0; s<symmetry.count(); s++) {
+            if ((invariant & (1 << s)) != 0 && generated[symmetry.apply(s, cell)]) { return true; }
+        }
+        generated[cell] = true;
+        return false;
+    }
+
+    /**
+     * Restituisce la mossa del figlio espressa nella forma canonica della configurazione del nodo (per la tabella delle trasposizioni)
+     * @implNote Costo: Θ(1)
+     * */
+    private int canonicalMoveOf(int node, int child) {
+        return symmetry.apply(nodes.symmetryOf(node), nodes.moveOf(child));
+    }
+
+    /**
+     * Indica se l'avversario avrebbe una mossa forzante, ovvero una cella adiacente che gli lascerebbe una sola mossa per vincere.
+     * È una stima statica sulle celle già valutate (non viene generata né cercata alcuna mossa nulla)
+     * @param moves Stime delle celle adiacenti per il giocatore che deve muovere
+     * @implNote Costo: O(q)   q = dimensione della coda
+     * */
+    private boolean hasForcingReply(PriorityQueue<EstimatedPosition> moves) {
+        for (EstimatedPosition estimation : moves) {
+            if (moveEstimator.isOpponentThreat(estimation)) { return true; }
+        }
+        return false;
+    }
+
     /**
      * Genera l'albero di gioco fino a una determinata profondità
      * @param parentNode Nodo radice
@@ -257,22 +961,59 @@ public class GameTree {
      * @param board Mantiene memorizzata la situazione attuale della griglia
      * @implNote Costo: O( p^depth * h(MK + NK + log(h)) )   h = altezza albero  |  p = Numero di iterazioni
      * */
-    private Node createTree(Node parentNode, boolean mePlaying, int depth, BoardStatus board) {
-        board.generateMovesToWinAt(parentNode.action.j, parentNode.action.i);                                                   // O(MK + NK)
-        MNKGameState gameState = board.statusAt(parentNode.action.j, parentNode.action.i);
+    private int createTree(int parentNode, boolean mePlaying, int depth, BoardStatus board) {
+        checkTimeout();
+
+        MNKGameState gameState = board.statusAt(nodes.columnOf(parentNode), nodes.rowOf(parentNode));                         // Θ(K)
         MNKCellState curr_state = mePlaying ? MY_STATE : OPPONENT_STATE;
 
+        // Configurazioni simmetriche condividono le voci della tabella delle trasposizioni
+        int canonical = board.getCanonicalSymmetry();
+        nodes.setHash(parentNode, board.getHash(canonical));
+        nodes.setSymmetry(parentNode, canonical);
+        long entry = transpositionTable.probe(nodes.hashOf(parentNode));
+        nodes.setSolved(parentNode, false);
+        nodes.setComplete(parentNode, false);
+
         if (gameState != MNKGameState.OPEN) {
-            setScoreOf(parentNode, gameState);
+            setScoreOf(parentNode, gameState, board.size());
+        }
+        else if (parentNode != root && board.isDead()) {
+            // Nessuno dei due giocatori può più vincere: pareggio dimostrato (la radice va comunque espansa per scegliere una mossa)
+            setScoreOf(parentNode, MNKGameState.DRAW, board.size());
+        }
+        else if (parentNode != root && entry != TranspositionTable.MISS &&
+                 TranspositionTable.boundOf(entry) == TranspositionTable.EXACT && TranspositionTable.depthOf(entry) >= depth) {
+            // Configurazione già valutata ad una profondità sufficiente (trasposizione): il nodo rimane una foglia
+            nodes.setScore(parentNode, TranspositionTable.scoreOf(entry));
+            nodes.setDepth(parentNode, TranspositionTable.depthOf(entry));
+            nodes.setSolved(parentNode, TranspositionTable.depthOf(entry) == TranspositionTable.MAX_DEPTH);  // Solo i risultati dimostrati hanno profondità massima
         }
         else if (depth <= 0) {
-            setHeuristicScoreOf(parentNode, board, curr_state);                                                                 // O(M*N*K)
+            setHeuristicScoreOf(parentNode, board, curr_state);                                                                 // Θ(K)
+            transpositionTable.store(nodes.hashOf(parentNode), nodes.depthOf(parentNode), TranspositionTable.EXACT, nodes.scoreOf(parentNode), TranspositionTable.NO_MOVE);
         }
         else {
             PriorityQueue<EstimatedPosition> moves = getAdjacency(parentNode, board, mePlaying ? MY_STATE : OPPONENT_STATE);    // O( h(MK + NK + log(h)) )
+            if (moves.isEmpty()) {
+                // Nessuna cella libera adiacente alle mosse giocate
+                setHeuristicScoreOf(parentNode, board, curr_state);                                                             // Θ(K)
+                return parentNode;
+            }
+
+            // Se la configurazione è simmetrica, le mosse equivalenti per simmetria vengono generate una sola volta
+            int invariant = board.getInvariantSymmetries();
+            boolean[] generated = invariant != 1 << Symmetry.IDENTITY ? new boolean[rows*columns] : null;
+
+            // Late move reductions: se nessuna mossa è critica e tra le celle adiacenti l'avversario non avrebbe
+            // una mossa forzante, la configurazione è tranquilla e le mosse meno promettenti sono generate a profondità ridotta
+            // (le foglie del sotto-albero ridotto devono avere lo stesso giocatore di turno di quelle dei fratelli)
+            boolean reduce = lateMoveReductions && depth-1 - LMR_REDUCTION > 0 && !moveEstimator.isCritical(moves.peek()) && !hasForcingReply(moves);
 
-            int i=0;
+            int i=0, considered=0;
             int score = moves.peek().score;
+            int lastChild = NodeStore.NIL;
+            int bestScore = mePlaying ? Integer.MIN_VALUE : Integer.MAX_VALUE;
             while (moves.size() > 0) {                                                                                          // O(p) p = Numero di iterazioni -> p ~ [MAX_EVAL]
                 // - Per le mosse critiche valuto tutte quelle che hanno lo stesso score e termino quando ne trovo una diversa
                 //   (idea di base: se devo bloccare/vincere non dovrò preoccuparmi di fare altro)
@@ -281,138 +1022,534 @@ public class GameTree {
                 if (moves.peek().score < PRIORITY_4 && i >= MAX_EVAL) { break; }
 
                 EstimatedPosition toVisit = moves.poll();                                                                       // O(log(q)) q = dimensione coda
+                considered++;
+                if (generated != null && isSymmetricDuplicate(toVisit.y*columns + toVisit.x, invariant, generated)) { continue; }
+
+                // Memoria dei nodi esaurita: l'espansione termina come allo scadere del tempo
+                if (canTimeout && nodes.isFull()) { throw new SearchTimeoutException(); }
 
                 MNKCell toEvalCell = new MNKCell(toVisit.y, toVisit.x, curr_state);
-                Node child = new Node(parentNode, toEvalCell);
+                int child = nodes.create(parentNode, toEvalCell);
+                createdNodes++;
+
+                boolean reduced = reduce && i >= LMR_MIN_MOVES;
+                if (reduced) { reducedNodes++; }
 
                 board.setAt(toVisit.x, toVisit.y, curr_state);                                                                  // O(M + N)
-                parentNode.children.add( createTree(child, !mePlaying, depth-1, board) );
+                nodes.linkChild(parentNode, lastChild, createTree(child, !mePlaying, reduced ? depth-1 - LMR_REDUCTION : depth-1, board));
+                if (reduced && !nodes.isSolved(child) && (mePlaying ? nodes.scoreOf(child) > bestScore : nodes.scoreOf(child) < bestScore)) {
+                    // La mossa ridotta migliora le precedenti: il sotto-albero viene rigenerato a profondità piena
+                    nodes.clearChildren(child);
+                    createTree(child, !mePlaying, depth-1, board);
+                    researchedNodes++;
+                }
+                bestScore = mePlaying ? Math.max(bestScore, nodes.scoreOf(child)) : Math.min(bestScore, nodes.scoreOf(child));
+                lastChild = child;
                 board.removeAt(toVisit.x, toVisit.y);                                                                           // O(M + N)
 
                 i++;
             }
+
+            // I figli comprendono tutte le mosse non perdenti se la mossa è forzata (vittoria o blocco di una vittoria immediata),
+            // se ogni mossa porta al pareggio o se sono state considerate tutte le celle libere
+            nodes.setComplete(parentNode, score >= moveEstimator.PRIORITY_2 || board.isDead() || (moves.isEmpty() && considered == rows*columns - board.size()));
+            if (resolve(parentNode)) { return parentNode; }
+
+            // Valore minimax del sotto-albero appena generato
+            int best = nodes.firstChildOf(parentNode);
+            for (int child = best; child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {                               // O(p)
+                if (mePlaying ? nodes.scoreOf(child) > nodes.scoreOf(best) : nodes.scoreOf(child) < nodes.scoreOf(best)) { best = child; }
+            }
+            nodes.setScore(parentNode, nodes.scoreOf(best));
+            nodes.setBound(parentNode, TranspositionTable.EXACT);
+            nodes.setDirty(parentNode, false);
+            nodes.setDepth(parentNode, searchDepthOf(parentNode, depth));
+            transpositionTable.store(nodes.hashOf(parentNode), nodes.depthOf(parentNode), TranspositionTable.EXACT, nodes.scoreOf(parentNode), canonicalMoveOf(parentNode, best));
         }
 
         return parentNode;
     }
 
+    /**
+     * Restituisce la profondità di ricerca di un nodo interno non dimostrato: la minima tra i figli non dimostrati più uno.
+     * I figli dimostrati non la determinano (la loro profondità massima indica solo che il risultato è esatto):
+     * se tutti i figli sono dimostrati ma il nodo non lo è (es. non tutte le mosse sono state generate),
+     * il nodo è valutato solo fino alla profondità con cui è stato generato
+     * @param searchedDepth Profondità con cui il nodo è stato generato
+     * @implNote Costo: O(p)
+     * */
+    private int searchDepthOf(int node, int searchedDepth) {
+        int minDepth = TranspositionTable.MAX_DEPTH;
+        for (int child = nodes.firstChildOf(node); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+            if (!nodes.isSolved(child)) { minDepth = Math.min(minDepth, nodes.depthOf(child)); }
+        }
+        if (minDepth == TranspositionTable.MAX_DEPTH) { return searchedDepth; }
+        return Math.min(minDepth + 1, TranspositionTable.MAX_DEPTH - 1);
+    }
+
+    /**
+     * Determina se il risultato di un nodo interno è dimostrato dai figli: il giocatore di turno ha una mossa vincente
+     * dimostrata, oppure tutti i figli sono dimostrati e comprendono tutte le mosse non perdenti.
+     * Un nodo dimostrato assume il valore esatto del figlio migliore e non viene più esteso né rivalutato
+     * @return true se il risultato del nodo è dimostrato
+     * @implNote Costo: O(p)
+     * */
+    private boolean resolve(int node) {
+        boolean mePlaying = nodes.stateOf(node) != MY_STATE;
+        int proven = NodeStore.NIL;
+        boolean allSolved = true;
+        for (int child = nodes.firstChildOf(node); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+            if (!nodes.isSolved(child)) { allSolved = false; }
+            else if (proven == NodeStore.NIL || (mePlaying ? nodes.scoreOf(child) > nodes.scoreOf(proven) : nodes.scoreOf(child) < nodes.scoreOf(proven))) { proven = child; }
+        }
+        if (proven == NodeStore.NIL) { return false; }
+
+        int value = nodes.scoreOf(proven);
+        boolean winning = mePlaying ? isWinScore(value) : isLossScore(value);
+        if (!winning && !(allSolved && nodes.isComplete(node))) { return false; }
+
+        nodes.setScore(node, value);
+        nodes.setBound(node, TranspositionTable.EXACT);
+        nodes.setDirty(node, false);
+        nodes.setSolved(node, true);
+        nodes.setDepth(node, TranspositionTable.MAX_DEPTH);
+        transpositionTable.store(nodes.hashOf(node), TranspositionTable.MAX_DEPTH, TranspositionTable.EXACT, value, canonicalMoveOf(node, proven));
+        solvedNodes++;
+        return true;
+    }
+
     /**
      * Genera l'albero di gioco iniziale
      * @implNote Costo: O( h(MK + NK + log(h)) )
      * */
     public void generate(MNKCell firstMove) {
-        root = new Node(null, firstMove);
+        root = nodes.create(NodeStore.NIL, firstMove);
+        rootPly = 1;
 
-        BoardStatus board = new BoardStatus(columns, rows, target, MY_STATE);       // Θ(M*N)
+        BoardStatus board = new BoardStatus(columns, rows, target, MY_STATE, lineScoreCache);       // Θ(M*N)
         board.setAt(firstMove.j, firstMove.i, firstMove.state);                     // Θ(1) [Dato che board è appena stato istanziato]
 
+        canTimeout = false;
         createTree(root, !first, MAX_HEIGHT, board);                                // O( [MAX_EVAL]^[MAX_HEIGHT] * h(MK + NK + log(h)) ) = O( h(MK + NK + log(h)) )
-        alphabeta(root, first, LOSS_SCORE, WIN_SCORE);                              // O([MAX_EVAL]^[MAX_HEIGHT]]) = O(c)
+        search(LOSS_SCORE, WIN_SCORE);                                              // O([MAX_EVAL]^[MAX_HEIGHT]]) = O(c)
     }
 
     /**
-     * Estende di una determinata profodità l'albero radicato nel nodo indicato
+     * Restituisce la griglia contenente le mosse piazzate fino alla configurazione del nodo indicato
+     * @implNote Costo: O( M*N + h(M + N) )
+     * */
+    private BoardStatus boardOf(int node) {
+        BoardStatus board = new BoardStatus(columns, rows, target, MY_STATE, lineScoreCache);      // Θ(M*N)
+
+        int iter = node;
+        while (iter != NodeStore.NIL) {                                             // O(h)
+            board.setAt(nodes.columnOf(iter), nodes.rowOf(iter), nodes.stateOf(iter));  // O(M+N)
+            iter = nodes.parentOf(iter);
+        }
+        return board;
+    }
+
+    /**
+     * Estende di una determinata profodità l'albero radicato nel nodo indicato.
+     * La profondità è limitata dalle celle libere: oltre non ci sono mosse da generare
      * @param node Nodo da estendere
+     * @return false se il nodo è già valutato fino alla profondità massima raggiungibile
      * @implNote Costo: O( p^depth * h(MK + NK + log(h)) )
      * */
-    private void extendNode(Node node, int depth) {
-        BoardStatus board = new BoardStatus(columns, rows, target, MY_STATE);
+    private boolean extendNode(int node, int depth) {
+        BoardStatus board = boardOf(node);                                          // O( h(M+N) )
+        int horizon = rows*columns - board.size();
+        if (nodes.isLeaf(node) && nodes.depthOf(node) >= horizon && node != root) { return false; }  // La radice va comunque espansa per scegliere una mossa
 
-        // Riempie board con le mosse piazzate fino alla configurazione corrente del nodo
-        Node iter = node;
-        while (iter != null) {                                                      // O(h)
-            board.setAt(iter.action.j, iter.action.i, iter.action.state);           // O(M+N)
-            iter = iter.parent;
+        boolean mePlaying = nodes.stateOf(node) == MY_STATE;
+        try {
+            createTree(node, !mePlaying, Math.min(depth, horizon), board);          // O( p^depth * h(MK + NK + log(h)) )
         }
-
-        boolean mePlaying = node.action.state == MY_STATE;
-        createTree(node, !mePlaying, depth, board);                                 // O( p^depth * h(MK + NK + log(h)) )
+        catch (SearchTimeoutException e) {
+            // Scarta l'estensione parziale, il nodo torna ad essere una foglia
+            nodes.clearChildren(node);
+            throw e;
+        }
+        return true;
     }
 
     /**
-     * Estende tutte le foglie dell'albero radicato nel nodo indicato
+     * Estende tutte le foglie dell'albero radicato nel nodo indicato (i sotto-alberi dimostrati non vengono estesi).
+     * I nodi interni con almeno una foglia estesa vengono marcati da rivalutare, gli altri mantengono il punteggio
+     * e il limite dell'ultima valutazione (i sotto-alberi generati sono già valutati da createTree)
      * @param node Nodo di partenza
+     * @return true se è stata estesa almeno una foglia
      * @implNote Costo (pessimo): O( [MAX_EVAL]^[MAX_HEIGHT] * h(MK + NK + log(h)) ) = O( h(MK + NK + log(h)) )
      * */
-    private void extendLeaves(Node node) {
-        if (node.isLeaf() && !node.endState) {
-            extendNode(node, EXTEND_HEIGHT);                                              // O( [MAX_EVAL]^[EXTEND_HEIGHT] * h(MK + NK + log(h)) ) =  O( h(MK + NK + log(h)) )
+    private boolean extendLeaves(int node) {
+        if (nodes.isSolved(node)) {
+            return false;
+        }
+        else if (nodes.isLeaf(node)) {
+            // Le foglie ottenute da una trasposizione sono già valutate fino a node.depth
+            return extendNode(node, nodes.depthOf(node) + EXTEND_HEIGHT);                 // O( [MAX_EVAL]^[EXTEND_HEIGHT] * h(MK + NK + log(h)) ) =  O( h(MK + NK + log(h)) )
+        }
+        else {
+            // Marcato prima di modificare i figli: rimane da rivalutare anche se l'estensione viene interrotta
+            boolean wasDirty = nodes.isDirty(node);
+            nodes.setDirty(node, true);
+
+            boolean extended = false;
+            for (int child = nodes.firstChildOf(node); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+                extended = extendLeaves(child) || extended;
+            }
+            nodes.setDepth(node, searchDepthOf(node, nodes.depthOf(node)));
+
+            if (!extended) { nodes.setDirty(node, wasDirty); }
+            else if (!resolve(node) && !wasDirty) { dirtiedNodes++; }
+            return extended;
+        }
+    }
+
+    /**
+     * Valuta la radice con una finestra di aspirazione centrata sul punteggio dell'iterazione precedente.
+     * Se il punteggio ottenuto cade al di fuori della finestra, ripete la valutazione con la finestra completa
+     * @implNote Costo (pessimo): O(p^h)
+     * */
+    private int aspirationSearch(int previousScore) {
+        int alpha = previousScore - ASPIRATION_WINDOW;
+        int beta = previousScore + ASPIRATION_WINDOW;
+
+        int score = search(alpha, beta);
+        if (score <= alpha || score >= beta) {
+            score = search(LOSS_SCORE, WIN_SCORE);
+        }
+
+        return score;
+    }
+
+    /**
+     * Restituisce il figlio della radice con il punteggio maggiore tra quelli elaborati da alphabeta
+     * @implNote Costo: O([MAX_EVAL]) = O(c)
+     * */
+    private int bestChild() {
+        int best = nodes.firstChildOf(root);
+        for (int child = best; child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+            if (nodes.scoreOf(child) > nodes.scoreOf(best) && nodes.isAlphabeta(child)) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Approfondisce l'albero radicato nella radice corrente fino allo scadere del tempo a disposizione
+     * @return Il figlio migliore della radice secondo l'ultima iterazione completata
+     * @implNote Costo: O( p^h * h(MK + NK + log(h)) )   h = altezza raggiunta allo scadere del tempo
+     * */
+    private int iterativeDeepening() {
+        createdNodes = 0;
+        dirtiedNodes = 0;
+        reducedNodes = 0;
+        researchedNodes = 0;
+        solvedNodes = 0;
+        lineScoreCache.resetStatistics();
+        visitedNodes.reset();
+        rescoredNodes.reset();
+        reusedNodes.reset();
+        scoringTime = 0;
+
+        // Prima iterazione: deve essere completata per garantire una mossa valida (tranne per i thread di supporto)
+        canTimeout = helper;
+        if (nodes.isLeaf(root)) {
+            extendNode(root, MAX_HEIGHT);
+        }
+        int score = search(LOSS_SCORE, WIN_SCORE);
+        int best = bestChild();
+        reachedDepth = nodes.depthOf(root);
+
+        canTimeout = true;
+        try {
+            boolean extended;
+            do {
+                extended = extendLeaves(root);                                          // O( h(MK + NK + log(h)) )
+                score = searchAlgorithm == SearchAlgorithm.MTDF ? mtdf(score) : aspirationSearch(score);   // O(p^h)
+                best = bestChild();
+                reachedDepth = nodes.depthOf(root);
+            }
+            while (extended && !isTimeOver());
+        }
+        catch (SearchTimeoutException e) {
+            // Si mantiene il risultato dell'ultima iterazione completata
+        }
+        canTimeout = false;
+
+        return best;
+    }
+
+    /**
+     * Ricerca di un thread di supporto (Lazy SMP): approfondisce la configurazione indicata fino alla scadenza
+     * o all'interruzione, con l'unico scopo di riempire la tabella delle trasposizioni condivisa.
+     * Se la configurazione segue quella della ricerca precedente, la radice viene spostata lungo le mosse giocate
+     * nel frattempo e il sotto-albero già generato viene riutilizzato; altrimenti l'albero viene scartato
+     * @param moves Mosse giocate fino alla configurazione da analizzare
+     * @implNote Costo: O( p^h * h(MK + NK + log(h)) )   h = altezza raggiunta allo scadere del tempo
+     * */
+    void helperSearch(MNKCell[] moves, long deadline) {
+        stopRequested = false;
+        this.deadline = deadline;
+        moveHistory.age();
+
+        if (root != NodeStore.NIL && leadsTo(moves)) {
+            while (rootPly < moves.length) { moveRoot(childWith(moves[rootPly])); }
         }
         else {
-            for (Node child : node.children) {
-                extendLeaves(child);
+            nodes.clear();
+            root = NodeStore.NIL;
+            for (MNKCell move : moves) {
+                int node = nodes.create(root, move);
+                if (root != NodeStore.NIL) { nodes.setAsOnlyChild(root, node); }
+                root = node;
             }
+            rootPly = moves.length;
+        }
+
+        try {
+            iterativeDeepening();
+        }
+        catch (SearchTimeoutException e) {
+            // Interrotto durante la prima iterazione
         }
     }
 
+    /**
+     * Indica se le mosse giocate fino alla radice corrente sono le prime delle mosse indicate
+     * @implNote Costo: Θ(h)   h = numero di mosse giocate
+     * */
+    private boolean leadsTo(MNKCell[] moves) {
+        if (rootPly > moves.length) { return false; }
+
+        int ply = rootPly;
+        for (int iter = root; iter != NodeStore.NIL; iter = nodes.parentOf(iter)) {
+            if (!nodes.hasAction(iter, moves[--ply])) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Restituisce le mosse giocate fino alla configurazione della radice
+     * @implNote Costo: Θ(h)   h = numero di mosse giocate
+     * */
+    private MNKCell[] movesToRoot() {
+        int count = 0;
+        for (int iter = root; iter != NodeStore.NIL; iter = nodes.parentOf(iter)) { count++; }
+
+        MNKCell[] moves = new MNKCell[count];
+        for (int iter = root; iter != NodeStore.NIL; iter = nodes.parentOf(iter)) { moves[--count] = nodes.actionOf(iter); }
+        return moves;
+    }
+
     /**
      * Sposta la radice dell'albero al nodo contenente la mossa dell'avversario corrispondente
      * @param move Mossa dell'avversario
-     * @implNote Costo (pessimo): O( h(MK + NK + log(h)) )
-     *           Costo (ottimo): O(c)   c = costante
+     * @implNote Costo: O([MAX_EVAL]) = O(c)
      * */
     public void setOpponentMove(MNKCell move) {
-        Node bestChild = null;
+        boolean pondered = stopPondering();
+        int bestChild = NodeStore.NIL;
 
         // Cerco il figlio con la mossa dell'avversario
-        for (Node child : root.children) {                                                              // O([MAX_EVAL]) = O(c)
-            if (child.action.equals(move)) {
+        for (int child = nodes.firstChildOf(root); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {  // O([MAX_EVAL]) = O(c)
+            if (nodes.hasAction(child, move)) {
                 bestChild = child;
                 break;
             }
         }
 
-        // Se la mossa dell'avversario non era tra le mie previste
-        if (bestChild == null) {
-            // Creo un nuovo nodo e genera il sotto-albero radicato
-            Node new_root = new Node(root, move);
-            root.setAsOnlyChild(new_root);
-            root = new_root;
-            extendNode(this.root, first ? MAX_HEIGHT+1 : MAX_HEIGHT);                                   // O( [MAX_EVAL]^[MAX_HEIGHT] * h(MK + NK + log(h)) ) = O( h(MK + NK + log(h)) )
-            alphabeta(this.root, this.root.action.state==MY_STATE, LOSS_SCORE, WIN_SCORE);      // O([MAX_EVAL]^[MAX_HEIGHT]]) = O(c)
+        if (pondered) {
+            ponderedMoves++;
+            if (bestChild != NodeStore.NIL) { ponderHits++; }
+        }
 
-            canExtend = false;
+        // Se la mossa dell'avversario non era tra le mie previste, creo un nuovo nodo (sarà espanso dalla ricerca)
+        if (bestChild == NodeStore.NIL) {
+            bestChild = nodes.create(root, move);
         }
-        else {
-            // Sposto la radice
-            root.setAsOnlyChild(bestChild);
-            root = bestChild;
-
-            // Eventualmente estendo
-            if (canExtend) {
-                extendLeaves(root);                                                                     // O( h(MK + NK + log(h)) )
-                alphabeta(root, root.action.state==MY_STATE, LOSS_SCORE, WIN_SCORE);            // O([MAX_EVAL]^[MAX_HEIGHT]]) = O(c)
+
+        moveRoot(bestChild);
+    }
+
+    /**
+     * Avvia il pondering: durante il turno dell'avversario un thread in background continua ad approfondire
+     * l'albero radicato nella radice corrente (al più per il tempo a disposizione dell'avversario)
+     * @implNote Costo: Θ(1)
+     * */
+    public void startPondering() {
+        stopPondering();
+        stopRequested = false;
+        deadline = System.currentTimeMillis() + TIMEOUT;
+
+        ponderThread = new Thread(this::ponder);
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    /**
+     * Interrompe il pondering e ne attende la terminazione. L'estensione in corso viene scartata,
+     * l'albero rimane quello dell'ultima iterazione completata
+     * @return true se il pondering era attivo
+     * @implNote Costo: Θ(1)
+     * */
+    public boolean stopPondering() {
+        if (ponderThread == null) { return false; }
+
+        stop();
+        try {
+            ponderThread.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ponderThread = null;
+        stopRequested = false;
+        canTimeout = false;
+        return true;
+    }
+
+    /**
+     * Approfondisce l'albero fino all'interruzione, alla scadenza o al completamento dell'albero
+     * @implNote Costo: O( p^h * h(MK + NK + log(h)) )   h = altezza raggiunta all'interruzione
+     * */
+    private void ponder() {
+        canTimeout = true;
+        try {
+            boolean extended;
+            do {
+                extended = extendLeaves(root);                                          // O( h(MK + NK + log(h)) )
+                search(LOSS_SCORE, WIN_SCORE);                                          // O(p^h)
             }
-            canExtend = !canExtend;
+            while (extended);
+        }
+        catch (SearchTimeoutException e) {
+            // Interrotto dalla mossa dell'avversario
         }
     }
 
     /**
-     * Sposta la radice dell'albero al nodo contenente la mossa migliore
+     * Cerca una sequenza forzante vincente (minacce continue) a partire dalla radice, prima della ricerca completa
+     * @return Il figlio della radice con la prima mossa della sequenza, NIL se non è stata trovata
+     * @implNote Costo (pessimo): O( nodi visitati * K(MK + NK) )
+     * */
+    private int threatMove() {
+        long threatDeadline = Math.min(deadline, System.currentTimeMillis() + (long)(TIMEOUT * THREAT_SEARCH_MARGIN));
+        MNKCell move = threatSearch.findWin(boardOf(root), MY_STATE, threatDeadline);
+        return move != null ? childWith(move) : NodeStore.NIL;
+    }
+
+    /**
+     * Risolve la radice in modo esatto se le celle libere sono sufficientemente poche
+     * @return Il figlio della radice con la mossa ottima se la radice è vinta o patta, NIL altrimenti
+     * @implNote Costo (pessimo): O( p! * MNK )   p = numero di celle libere
+     * */
+    private int provenMove() {
+        provenResult = MNKGameState.OPEN;
+        if (solver == null || rows*columns - rootPly > SOLVER_MAX_FREE_CELLS) { return NodeStore.NIL; }
+
+        long solverDeadline = Math.min(deadline, System.currentTimeMillis() + (long)(TIMEOUT * SOLVER_MARGIN));
+        provenResult = solver.solve(boardOf(root), MY_STATE, solverDeadline);
+
+        // In caso di sconfitta si lascia la scelta alla ricerca euristica (l'avversario potrebbe sbagliare)
+        MNKCell move = solver.getBestMove(MY_STATE);
+        return move != null ? childWith(move) : NodeStore.NIL;
+    }
+
+    /**
+     * Restituisce il figlio della radice con la mossa indicata (creandolo se non presente)
+     * @implNote Costo: O([MAX_EVAL]) = O(c)
+     * */
+    private int childWith(MNKCell move) {
+        for (int child = nodes.firstChildOf(root); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+            if (nodes.hasAction(child, move)) { return child; }
+        }
+        return nodes.create(root, move);
+    }
+
+    /**
+     * Sposta la radice al figlio indicato. I sotto-alberi dei fratelli non sono più raggiungibili e vengono liberati in blocco
+     * @implNote Costo: Θ(h + n)   h = mosse giocate  |  n = nodi del sotto-albero del figlio
+     * */
+    private void moveRoot(int child) {
+        nodes.setAsOnlyChild(root, child);
+        root = nodes.compact(child);
+        rootPly++;
+    }
+
+    /**
+     * Approfondisce la ricerca e sposta la radice dell'albero al nodo contenente la mossa migliore
      * @return Mossa da eseguire
-     * @implNote Costo (pessimo): O( h(MK + NK + log(h)) ) <br/>
-     *           Costo (ottimo): O(c)   c = costante
+     * @implNote Costo: O( p^h * h(MK + NK + log(h)) )   h = altezza raggiunta allo scadere del tempo
      * */
     public MNKCell nextMove() {
-        // Cerco il figlio con il punteggio maggiore
-        Node nextChild = root.children.peek();
-        for (Node child : root.children) {                                                          // O([MAX_EVAL]) = O(c)
-            if (child.score > nextChild.score && child.alphabeta) {
-                nextChild = child;
-            }
+        moveRoot(searchBestChild());
+        return nodes.actionOf(root);
+    }
+
+    /**
+     * Sposta la radice dell'albero al nodo contenente la mossa indicata, scelta senza ricerca (es. dal libro delle aperture)
+     * @implNote Costo: Θ(h + n)   h = mosse giocate  |  n = nodi del sotto-albero del figlio
+     * */
+    public void playMove(MNKCell move) {
+        stopPondering();
+        moveRoot(childWith(move));
+    }
+
+    /**
+     * Cerca la mossa migliore per la configurazione indicata (l'albero deve essere vuoto e il giocatore che deve muovere
+     * deve essere quello dell'albero) entro il tempo a disposizione
+     * @param moves Mosse giocate fino alla configurazione da analizzare (almeno una)
+     * @return Mossa migliore
+     * @implNote Costo: O( p^h * h(MK + NK + log(h)) )   h = altezza raggiunta allo scadere del tempo
+     * */
+    public MNKCell analyze(MNKCell[] moves) {
+        for (MNKCell move : moves) {
+            int node = nodes.create(root, move);
+            if (root != NodeStore.NIL) { nodes.setAsOnlyChild(root, node); }
+            root = node;
         }
+        rootPly = moves.length;
+        startTimer();
 
-        // Sposto la radice
-        root.setAsOnlyChild(nextChild);
-        root = nextChild;
+        return nodes.actionOf(searchBestChild());
+    }
+
+    /**
+     * Restituisce il figlio della radice che realizza il risultato dimostrato dall'albero (vittoria più rapida, sconfitta più lenta)
+     * @return Il figlio, NIL se il risultato della radice non è dimostrato
+     * @implNote Costo: O([MAX_EVAL]) = O(c)
+     * */
+    private int solvedMove() {
+        if (!nodes.isSolved(root) || nodes.isLeaf(root)) { return NodeStore.NIL; }
 
-        // Eventualmente estendo
-        if (canExtend) {
-            extendLeaves(root);                                                                     // O( h(MK + NK + log(h)) )
-            alphabeta(root, root.action.state==MY_STATE, LOSS_SCORE, WIN_SCORE);            // O([MAX_EVAL]^[MAX_HEIGHT]]) = O(c)
+        int best = NodeStore.NIL;
+        for (int child = nodes.firstChildOf(root); child != NodeStore.NIL; child = nodes.nextSiblingOf(child)) {
+            if (nodes.isSolved(child) && (best == NodeStore.NIL || nodes.scoreOf(child) > nodes.scoreOf(best))) { best = child; }
         }
-        canExtend = !canExtend;
+        return best;
+    }
 
-        return root.action;
+    /**
+     * Cerca il figlio della radice con la mossa migliore: risultato già dimostrato dall'albero, mossa dimostrata dal risolutore,
+     * sequenza di minacce vincente o, in mancanza di queste, approfondimento iterativo fino allo scadere del tempo
+     * @implNote Costo: O( p^h * h(MK + NK + log(h)) )   h = altezza raggiunta allo scadere del tempo
+     * */
+    private int searchBestChild() {
+        int nextChild = solvedMove();
+        if (nextChild == NodeStore.NIL) { nextChild = provenMove(); }
+        if (nextChild == NodeStore.NIL) { nextChild = threatMove(); }
+        if (nextChild == NodeStore.NIL) {
+            if (lazySMP != null) { lazySMP.start(movesToRoot(), deadline); }
+            try {
+                nextChild = iterativeDeepening();
+            }
+            finally {
+                if (lazySMP != null) { lazySMP.stop(); }
+            }
+        }
+        return nextChild;
     }
 }
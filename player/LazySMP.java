@@ -0,0 +1,102 @@
+package player;
+
+import mnkgame.*;
+
+/**
+ * Ricerca parallela Lazy SMP: più thread di supporto eseguono la stessa ricerca ad approfondimento iterativo
+ * (ciascuno con il proprio albero e con profondità/ampiezza diverse) condividendo la tabella delle trasposizioni.
+ * L'albero principale sfrutta i risultati memorizzati dai thread di supporto per tagli e ordinamento delle mosse.
+ * */
+public class LazySMP {
+    private final GameTree[] helpers;  // Alberi dei thread di supporto (mantenuti tra una mossa e la successiva)
+    private final Thread[] threads;
+    private long startTime, elapsedTime;
+
+    /**
+     * @param helpersCount Numero di thread di supporto
+     * @param searchAlgorithm Algoritmo utilizzato dai thread di supporto per valutare l'albero
+     * @param lateMoveReductions Indica se i thread di supporto applicano le riduzioni alle mosse non critiche
+     * @implNote Costo: Θ(helpersCount * M*N)
+     * */
+    public LazySMP(int M, int N, int K, boolean first, int timeout_in_secs, int helpersCount, SearchAlgorithm searchAlgorithm, boolean lateMoveReductions, TranspositionTable transpositionTable) {
+        this.helpers = new GameTree[helpersCount];
+        this.threads = new Thread[helpersCount];
+        this.startTime = 0;
+        this.elapsedTime = 0;
+
+        for (int i=0; i<helpersCount; i++) {
+            helpers[i] = new GameTree(M, N, K, first, timeout_in_secs, 1, ParallelMode.LAZY_SMP, searchAlgorithm, lateMoveReductions, transpositionTable, i+1, new NodeArena(N));
+        }
+    }
+
+    /**
+     * Imposta la forma dell'albero dei thread di supporto (vedi GameTree.setSearchShape)
+     * @implNote Costo: Θ(helpersCount)
+     * */
+    public void setSearchShape(int maxHeight, int extendHeight, int maxEval) {
+        for (GameTree helper : helpers) { helper.setSearchShape(maxHeight, extendHeight, maxEval); }
+    }
+
+    /**
+     * Avvia i thread di supporto sulla configurazione indicata (ogni thread sposta la radice del proprio albero
+     * alla configurazione, riutilizzando il sotto-albero già generato se possibile)
+     * @param moves Mosse giocate fino alla configurazione da analizzare
+     * @param deadline Istante entro cui terminare la ricerca
+     * @implNote Costo: Θ(helpersCount)
+     * */
+    public void start(MNKCell[] moves, long deadline) {
+        startTime = System.currentTimeMillis();
+
+        for (int i=0; i<helpers.length; i++) {
+            final GameTree helper = helpers[i];
+            threads[i] = new Thread(() -> helper.helperSearch(moves, deadline));
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * Interrompe i thread di supporto e ne attende la terminazione
+     * @implNote Costo: Θ(helpersCount)
+     * */
+    public void stop() {
+        for (GameTree helper : helpers) { helper.stop(); }
+        for (Thread thread : threads) {
+            try {
+                if (thread != null) { thread.join(); }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        elapsedTime = System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Restituisce il numero di nodi generati dai thread di supporto durante l'ultima ricerca
+     * @implNote Costo: Θ(helpersCount)
+     * */
+    public long getCreatedNodes() {
+        long nodes = 0;
+        for (GameTree helper : helpers) { nodes += helper.getCreatedNodes(); }
+        return nodes;
+    }
+
+    /**
+     * Restituisce la profondità massima raggiunta dai thread di supporto durante l'ultima ricerca
+     * @implNote Costo: Θ(helpersCount)
+     * */
+    public int getReachedDepth() {
+        int depth = 0;
+        for (GameTree helper : helpers) { depth = Math.max(depth, helper.getReachedDepth()); }
+        return depth;
+    }
+
+    /**
+     * Restituisce il numero di nodi al secondo generati dai thread di supporto durante l'ultima ricerca
+     * @implNote Costo: Θ(helpersCount)
+     * */
+    public double getNodesPerSecond() {
+        return elapsedTime > 0 ? getCreatedNodes() * 1000.0 / elapsedTime : 0;
+    }
+}
@@ -0,0 +1,124 @@
+package player;
+
+/**
+ * Tabelle degli score delle linee per K piccoli: lo score di una cella rispetto ad una linea dipende solo dalle finestre
+ * di K celle che la contengono, cioè dal segmento di 2K-1 celle centrato nella cella.
+ * Il segmento è codificato in base 3 (cifra t = cella in posizione t del segmento: libera, del giocatore, bloccata da una pedina
+ * dell'avversario o fuori dalla linea); per ogni codifica viene precalcolato lo score della cella centrale
+ * */
+public class LinePatterns {
+    public static final int MAX_TARGET = 6;         // 3^11 codifiche per K = 6
+    public static final int NOT_WINNABLE = -1;
+    public static final int FREE = 0, OWN = 1, BLOCKED = 2;
+    private static LinePatterns cached = null;
+
+    private final int target;
+    private final int width;        // Lunghezza del segmento (2K-1)
+    private final int highDigit;    // Peso della cifra più significativa (3^(2K-2))
+    private final byte[] moves;     // moves[p] = mosse necessarie per vincere dalla cella centrale (NOT_WINNABLE se nessuna finestra è vincibile)
+    private final byte[] start;     // start[p] = inizio nel segmento della finestra assegnata alla cella centrale
+
+    /**
+     * @implNote Costo: Θ(3^(2K-1) * K^2)
+     * */
+    private LinePatterns(int target) {
+        this.target = target;
+        this.width = 2*target - 1;
+
+        int patterns = 1;
+        for (int t=0; t<width; t++) { patterns *= 3; }
+        this.highDigit = patterns / 3;
+        this.moves = new byte[patterns];
+        this.start = new byte[patterns];
+
+        int[] segment = new int[width];
+        int[] windowMoves = new int[width], windowStart = new int[width];
+        for (int pattern=0; pattern<patterns; pattern++) {
+            int digits = pattern;
+            for (int t=0; t<width; t++) { segment[t] = digits % 3; digits /= 3; }
+
+            scoreSegment(segment, windowMoves, windowStart);
+            moves[pattern] = (byte)windowMoves[target-1];
+            start[pattern] = (byte)windowStart[target-1];
+        }
+    }
+
+    /**
+     * Assegna ad ogni cella del segmento la finestra vincibile con meno mosse mancanti tra quelle che la contengono
+     * (stessa propagazione di BoardStatus: a parità di mosse resta la finestra che inizia prima)
+     * @implNote Costo: Θ(K^2)
+     * */
+    private void scoreSegment(int[] segment, int[] windowMoves, int[] windowStart) {
+        for (int i=0; i<width; i++) {
+            windowMoves[i] = NOT_WINNABLE;
+            windowStart[i] = NOT_WINNABLE;
+
+            // Finestra che termina in i
+            int from = i-(target-1);
+            if (from < 0) { continue; }
+            int free = 0;
+            boolean blocked = false;
+            for (int t=from; t<=i; t++) {
+                if (segment[t] == BLOCKED) { blocked = true; }
+                else if (segment[t] == FREE) { free++; }
+            }
+            if (blocked) { continue; }
+            windowMoves[i] = free;
+            windowStart[i] = from;
+
+            // Propagazione
+            for (int k=1; k<=target-1 && i-k>=0; k++) {
+                if (windowMoves[i-k] != NOT_WINNABLE && windowMoves[i-k] <= windowMoves[i]) { break; }
+
+                windowMoves[i-k] = windowMoves[i];
+                windowStart[i-k] = windowStart[i];
+            }
+        }
+    }
+
+    /**
+     * Restituisce le tabelle per un determinato K
+     * @return Le tabelle, null se K > MAX_TARGET
+     * @implNote Costo (pessimo): Θ(3^(2K-1) * K^2)<br/>
+     *           Costo (ottimo): Θ(1) [Tabelle già calcolate]
+     * */
+    public static synchronized LinePatterns of(int target) {
+        if (target > MAX_TARGET) { return null; }
+        if (cached == null || cached.target != target) {
+            cached = new LinePatterns(target);
+        }
+        return cached;
+    }
+
+    /**
+     * Restituisce la lunghezza dei segmenti (2K-1)
+     * @implNote Costo: Θ(1)
+     * */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Restituisce il peso della cifra più significativa della codifica (3^(2K-2))
+     * @implNote Costo: Θ(1)
+     * */
+    public int highDigit() {
+        return highDigit;
+    }
+
+    /**
+     * Restituisce le mosse necessarie per vincere dalla cella centrale del segmento (NOT_WINNABLE se non può vincere)
+     * @implNote Costo: Θ(1)
+     * */
+    public int movesOf(int pattern) {
+        return moves[pattern];
+    }
+
+    /**
+     * Restituisce l'inizio, relativo al segmento, della finestra assegnata alla cella centrale
+     * @implNote Costo: Θ(1)
+     * */
+    public int startOf(int pattern) {
+        return start[pattern];
+    }
+}
@@ -0,0 +1,188 @@
+package player;
+
+import java.util.Arrays;
+
+/**
+ * Cache LRU a dimensione fissa degli score delle linee, memorizzata in vettori di primitivi.
+ * La chiave è il contenuto della linea dal punto di vista di un giocatore: lunghezza e bitboard delle pedine
+ * del giocatore e dell'avversario (linee con lo stesso contenuto hanno gli stessi score, qualunque sia la loro posizione).
+ * Le voci sono indicizzate da una tabella hash a liste di trabocco e collegate in una lista doppia in ordine di utilizzo:
+ * a cache piena viene sostituita la voce usata meno di recente.
+ * Non è condivisa tra thread: ogni albero di gioco ha la propria cache
+ * */
+public class LineScoreCache {
+    public static final int MISS = -1;
+    private static final int NIL = -1;
+
+    private final int capacity, maxLength, maxWords;
+    private final long[] keys;          // keys[e] = hash del contenuto della voce e
+    private final int[] lengths;        // lengths[e] = lunghezza della linea della voce e
+    private final long[] bits;          // bits[e*2*maxWords ...] = bitboard del giocatore seguita da quella dell'avversario
+    private final int[] scores;         // scores[e*maxLength + k] = score della posizione k della linea della voce e
+    private final int[] buckets;        // buckets[h] = prima voce con hash h (NIL se nessuna)
+    private final int[] nextInBucket;   // Voce successiva nella stessa lista di trabocco
+    private final int[] previous, next; // Lista in ordine di utilizzo (head = usata più di recente)
+    private final int bucketMask;
+    private int head, tail, size;
+    private long hits, misses;
+
+    /**
+     * @param sizeLog2 Logaritmo in base 2 del numero di voci
+     * @param maxLength Lunghezza massima delle linee (max{M, N})
+     * @implNote Costo: Θ(2^sizeLog2 * max{M, N})
+     * */
+    public LineScoreCache(int sizeLog2, int maxLength) {
+        this.capacity = 1 << sizeLog2;
+        this.maxLength = maxLength;
+        this.maxWords = (maxLength + 63) / 64;
+        this.keys = new long[capacity];
+        this.lengths = new int[capacity];
+        this.bits = new long[capacity * 2*maxWords];
+        this.scores = new int[capacity * maxLength];
+        this.buckets = new int[capacity];
+        this.nextInBucket = new int[capacity];
+        this.previous = new int[capacity];
+        this.next = new int[capacity];
+        this.bucketMask = capacity - 1;
+        Arrays.fill(buckets, NIL);
+        this.head = NIL;
+        this.tail = NIL;
+        this.size = 0;
+    }
+
+    /**
+     * Calcola l'hash del contenuto di una linea
+     * @param base Prima parola delle bitboard della linea
+     * @implNote Costo: Θ(length / 64 + 1)
+     * */
+    public static long hashOf(long[] own, long[] other, int base, int length) {
+        long hash = length * 0x9E3779B97F4A7C15L;
+        for (int w=0; w<(length + 63) / 64; w++) {
+            hash = (hash ^ own[base + w]) * 0xBF58476D1CE4E5B9L;
+            hash = (hash ^ other[base + w]) * 0x94D049BB133111EBL;
+            hash ^= hash >>> 31;
+        }
+        return hash;
+    }
+
+    /**
+     * Cerca gli score della linea indicata
+     * @return La voce, MISS se la linea non è nella cache
+     * @implNote Costo: Θ(length / 64 + 1) [In media]
+     * */
+    public int find(long key, long[] own, long[] other, int base, int length) {
+        for (int entry = buckets[(int)key & bucketMask]; entry != NIL; entry = nextInBucket[entry]) {
+            if (keys[entry] == key && lengths[entry] == length && hasBits(entry, own, other, base, length)) {
+                moveToHead(entry);
+                hits++;
+                return entry;
+            }
+        }
+        misses++;
+        return MISS;
+    }
+
+    /**
+     * Restituisce lo score della posizione indicata della linea di una voce
+     * @implNote Costo: Θ(1)
+     * */
+    public int scoreOf(int entry, int position) {
+        return scores[entry*maxLength + position];
+    }
+
+    /**
+     * Memorizza gli score di una linea (assente dalla cache), sostituendo la voce usata meno di recente se la cache è piena
+     * @param lineScores Score della linea per posizione
+     * @implNote Costo: Θ(length)
+     * */
+    public void store(long key, long[] own, long[] other, int base, int length, int[] lineScores) {
+        int entry;
+        if (size < capacity) {
+            entry = size++;
+        }
+        else {
+            entry = tail;
+            unlink(entry);
+            removeFromBucket(entry);
+        }
+
+        keys[entry] = key;
+        lengths[entry] = length;
+        for (int w=0; w<(length + 63) / 64; w++) {
+            bits[entry*2*maxWords + w] = own[base + w];
+            bits[entry*2*maxWords + maxWords + w] = other[base + w];
+        }
+        System.arraycopy(lineScores, 0, scores, entry*maxLength, length);
+
+        int bucket = (int)key & bucketMask;
+        nextInBucket[entry] = buckets[bucket];
+        buckets[bucket] = entry;
+        linkHead(entry);
+    }
+
+    /**
+     * Indica se la voce contiene esattamente le bitboard indicate
+     * @implNote Costo: Θ(length / 64 + 1)
+     * */
+    private boolean hasBits(int entry, long[] own, long[] other, int base, int length) {
+        for (int w=0; w<(length + 63) / 64; w++) {
+            if (bits[entry*2*maxWords + w] != own[base + w] || bits[entry*2*maxWords + maxWords + w] != other[base + w]) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Funzioni di gestione della lista in ordine di utilizzo
+     * @implNote Costo: Θ(1)
+     * */
+    private void linkHead(int entry) {
+        previous[entry] = NIL;
+        next[entry] = head;
+        if (head != NIL) { previous[head] = entry; }
+        head = entry;
+        if (tail == NIL) { tail = entry; }
+    }
+    private void unlink(int entry) {
+        if (previous[entry] != NIL) { next[previous[entry]] = next[entry]; }
+        else { head = next[entry]; }
+        if (next[entry] != NIL) { previous[next[entry]] = previous[entry]; }
+        else { tail = previous[entry]; }
+    }
+    private void moveToHead(int entry) {
+        if (entry == head) { return; }
+        unlink(entry);
+        linkHead(entry);
+    }
+
+    /**
+     * Rimuove la voce dalla sua lista di trabocco
+     * @implNote Costo: Θ(1) [In media]
+     * */
+    private void removeFromBucket(int entry) {
+        int bucket = (int)keys[entry] & bucketMask;
+        if (buckets[bucket] == entry) {
+            buckets[bucket] = nextInBucket[entry];
+            return;
+        }
+        int iter = buckets[bucket];
+        while (nextInBucket[iter] != entry) { iter = nextInBucket[iter]; }
+        nextInBucket[iter] = nextInBucket[entry];
+    }
+
+    /**
+     * Azzera le statistiche di utilizzo (le voci restano valide)
+     * @implNote Costo: Θ(1)
+     * */
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Restituisce la frazione di ricerche nella cache andate a buon fine dall'ultimo azzeramento delle statistiche
+     * @implNote Costo: Θ(1)
+     * */
+    public double getHitRate() {
+        return hits + misses > 0 ? (double)hits / (hits + misses) : 0;
+    }
+}
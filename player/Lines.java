@@ -0,0 +1,103 @@
+package player;
+
+import java.util.Arrays;
+
+/**
+ * Linee della griglia: righe, colonne, diagonali principali e diagonali secondarie (intere, da bordo a bordo).
+ * Per ogni cella viene precalcolata la linea che la contiene in ciascuna direzione e la sua posizione nella linea;
+ * ogni linea ha inoltre un intervallo di parole da 64 bit riservato alla sua bitboard (un bit per posizione)
+ * */
+public class Lines {
+    public static final int ROW = 0, COLUMN = 1, MAIN_DIAGONAL = 2, SECONDARY_DIAGONAL = 3;
+    public static final int DIRECTIONS = 4;
+    private static final int[] DX = { 1, 0, 1, -1 };     // Direzioni: riga, colonna, diagonale principale, diagonale secondaria
+    private static final int[] DY = { 0, 1, 1, 1 };
+    private static Lines cached = null;
+
+    private final int columns, rows;
+    private final int[][] lineOf;       // lineOf[d][c] = linea nella direzione d che contiene la cella c (riga*N + colonna)
+    private final int[][] positionOf;   // positionOf[d][c] = posizione della cella c nella sua linea in direzione d
+    private final int[] start, step, length, wordOffset;
+    private final int words;
+
+    /**
+     * @implNote Costo: Θ(M*N)
+     * */
+    private Lines(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.lineOf = new int[DIRECTIONS][columns*rows];
+        this.positionOf = new int[DIRECTIONS][columns*rows];
+
+        // Al più M*N linee per direzione: gli array vengono ridotti alla fine
+        int[] start = new int[DIRECTIONS*columns*rows], step = new int[DIRECTIONS*columns*rows];
+        int[] length = new int[DIRECTIONS*columns*rows], wordOffset = new int[DIRECTIONS*columns*rows];
+        int lines = 0, words = 0;
+
+        for (int d=0; d<DIRECTIONS; d++) {
+            for (int y=0; y<rows; y++) {
+                for (int x=0; x<columns; x++) {
+                    if (isValidCell(x - DX[d], y - DY[d])) { continue; } // Non è l'inizio di una linea
+
+                    int i = x, j = y, k = 0;
+                    while (isValidCell(i, j)) {
+                        lineOf[d][j*columns + i] = lines;
+                        positionOf[d][j*columns + i] = k;
+                        i += DX[d]; j += DY[d]; k++;
+                    }
+
+                    start[lines] = y*columns + x;
+                    step[lines] = DY[d]*columns + DX[d];
+                    length[lines] = k;
+                    wordOffset[lines] = words;
+                    words += (k + 63) / 64;
+                    lines++;
+                }
+            }
+        }
+
+        this.start = Arrays.copyOf(start, lines);
+        this.step = Arrays.copyOf(step, lines);
+        this.length = Arrays.copyOf(length, lines);
+        this.wordOffset = Arrays.copyOf(wordOffset, lines);
+        this.words = words;
+    }
+
+    /**
+     * Restituisce le linee per una griglia di determinate dimensioni
+     * @implNote Costo (pessimo): Θ(M*N)<br/>
+     *           Costo (ottimo): Θ(1) [Linee già calcolate]
+     * */
+    public static synchronized Lines of(int columns, int rows) {
+        if (cached == null || cached.columns != columns || cached.rows != rows) {
+            cached = new Lines(columns, rows);
+        }
+        return cached;
+    }
+
+    /**
+     * Indica se una coordinata è valida
+     * @implNote Costo: Θ(1)
+     * */
+    private boolean isValidCell(int x, int y) {
+        return (x >= 0 && x < columns) && (y >= 0 && y < rows);
+    }
+
+    /**
+     * Restituisce il numero di parole da 64 bit necessarie per le bitboard di tutte le linee
+     * @implNote Costo: Θ(1)
+     * */
+    public int words() {
+        return words;
+    }
+
+    /**
+     * Funzioni di accesso alle linee e alle posizioni delle celle
+     * @implNote Costo: Θ(1)
+     * */
+    public int lineOf(int direction, int cell) { return lineOf[direction][cell]; }
+    public int positionOf(int direction, int cell) { return positionOf[direction][cell]; }
+    public int lengthOf(int line) { return length[line]; }
+    public int wordOffsetOf(int line) { return wordOffset[line]; }
+    public int cellOf(int line, int position) { return start[line] + position*step[line]; }
+}
@@ -0,0 +1,37 @@
+package player;
+
+import mnkgame.*;
+
+public class MCTSPlayer implements MNKPlayer {
+    private static final int SEARCH_THREADS = Runtime.getRuntime().availableProcessors(); // Thread utilizzati dalla ricerca
+    private static final double TIMEOUT_MARGIN = 0.8;                                       // Frazione del tempo a disposizione utilizzabile per la ricerca
+    private static final boolean VERBOSE = true;                                            // Stampa le simulazioni eseguite ad ogni mossa
+
+    private long timeout;
+    private MonteCarloTreeSearch search;
+
+    public MCTSPlayer() {
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    public void initPlayer(int M, int N, int K, boolean first, int timeout_in_secs) {
+        this.timeout = timeout_in_secs * 1000L;
+        this.search = new MonteCarloTreeSearch(M, N, K, SEARCH_THREADS);
+    }
+
+    /**
+     * @implNote Costo: O( threads * simulazioni * M*N )
+     * */
+    public MNKCell selectCell(MNKCell[] FC, MNKCell[] MC) {
+        long deadline = System.currentTimeMillis() + (long)(timeout * TIMEOUT_MARGIN);
+        MNKCell outCell = this.search.search(MC, deadline);
+        if (VERBOSE) { System.err.println(playerName() + ": " + this.search.getPlayouts() + " simulazioni (" + (long)this.search.getPlayoutsPerSecond() + " al secondo)"); }
+        return outCell;
+    }
+
+    public String playerName() {
+        return "Boneless MCTS";
+    }
+}
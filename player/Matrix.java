@@ -2,8 +2,6 @@ package player;
 
 import mnkgame.*;
 
-import java.util.LinkedList;
-
 public class Matrix {
     private MNKCellState[][] matrix;
     private int size;
@@ -65,98 +63,6 @@ public class Matrix {
         return size;
     }
 
-    /**
-     * Restituisce un vettore contenente la configurazione dell'intera riga a cui appartiene la posizione in input
-     * @implNote Costo: Θ(N)
-     * */
-    public MNKCellState[] getRowAt(int start_x, int start_y) {
-        MNKCellState[] row = new MNKCellState[columns];
-        for (int x=0; x<columns; x++) {
-            row[x] = matrix[x][start_y];
-        }
-        return row;
-    }
-
-    /**
-     * Restituisce un vettore contenente la configurazione dell'intera colonna a cui appartiene la posizione in input
-     * @implNote Costo: Θ(M)
-     * */
-    public MNKCellState[] getColumnAt(int start_x, int start_y) {
-        MNKCellState[] column = new MNKCellState[rows];
-        for (int y=0; y<rows; y++) {
-            column[y] = matrix[start_x][y];
-        }
-        return column;
-    }
-
-    /**
-     * Restituisce un vettore contenente la configurazione dell'intera diagonale principale a cui appartiene la posizione in input
-     * @implNote Costo: O(min{M, N})
-     * */
-    public MNKCellState[] getMainDiagonalAt(int start_x, int start_y) {
-        LinkedList<MNKCellState> buffer = new LinkedList<>();
-
-        int i = start_x, j = start_y;
-        while (i < columns && j < rows) {
-            buffer.addLast(matrix[i][j]);
-            i++; j++;
-        }
-
-        i = start_x-1; j = start_y-1;
-        while (i >= 0 && j >= 0) {
-            buffer.addFirst(matrix[i][j]);
-            i--; j--;
-        }
-
-        return buffer.toArray(new MNKCellState[buffer.size()]);
-    }
-
-    /**
-     * Restituisce un vettore contenente la configurazione dell'intera diagonale secondaria a cui appartiene la posizione in input
-     * @implNote Costo: O(min{M, N})
-     * */
-    public MNKCellState[] getSecondaryDiagonalAt(int start_x, int start_y) {
-        LinkedList<MNKCellState> buffer = new LinkedList<>();
-
-        int i = start_x, j = start_y;
-        while (i < columns && j >= 0) {
-            buffer.addFirst(matrix[i][j]);
-            i++; j--;
-        }
-
-        i = start_x-1; j = start_y+1;
-        while (i >= 0 && j < rows) {
-            buffer.addLast(matrix[i][j]);
-            i--; j++;
-        }
-
-        return buffer.toArray(new MNKCellState[buffer.size()]);
-    }
-
-    /**
-     * Dati (x, y), restituisce un oggetto Coord contenente le coordinate di inizio della diagonale principale che comprende (x, y)
-     * @implNote Costo: Θ(1)
-     * */
-    public Coord getMainDiagonalStart(int x, int y) {
-        int min = Math.min(x, y);
-        return new Coord(x-min, y-min);
-    }
-
-    /**
-     * Dati (x, y), restituisce un oggetto Coord contenente le coordinate di inizio della diagonale secondaria che comprende (x, y)
-     * @implNote Costo: Θ(1)
-     * */
-    public Coord getSecondaryDiagonalStart(int x, int y) {
-        int a = x + y;
-        if (a <= columns-1) {
-            return new Coord(a, 0);
-        }
-        else {
-            return new Coord(columns-1, a - (columns-1));
-        }
-    }
-
-
     public String toString(MNKCellState playerState) {
         String out = "";
         for (int y=0; y<rows-1; y++) {
@@ -0,0 +1,422 @@
+package player;
+
+import mnkgame.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monte Carlo Tree Search (UCT) parallelo sull'albero: più thread condividono lo stesso albero,
+ * la perdita virtuale allontana i thread dai percorsi già in corso di valutazione.
+ * I figli vengono generati con le priorità di MoveEstimator, utilizzate come bias progressivo nella selezione.
+ * Le simulazioni sono giocate su una griglia di primitivi.
+ * Le mosse sono indicate dall'indice della cella (y*columns + x), x = colonna, y = riga
+ * */
+public class MonteCarloTreeSearch {
+    private static final byte FREE = 0, P1 = 1, P2 = 2;
+    private static final int NO_MOVE = -1;
+    private static final int WIN_REWARD = 2, DRAW_REWARD = 1;   // Ricompense in mezzi punti
+
+    /**
+     * Nodo dell'albero condiviso tra i thread
+     * */
+    private static class TreeNode {
+        public final int move;              // Mossa che ha portato al nodo
+        public final byte player;           // Giocatore che ha eseguito la mossa
+        public final double prior;          // Priorità della mossa normalizzata in [0, 1]
+        public volatile TreeNode[] children;// null se il nodo non è ancora stato espanso
+        public volatile int terminalReward; // Ricompensa del giocatore se la mossa termina la partita (-1 altrimenti)
+        public final AtomicInteger visits;  // Visite (comprese le perdite virtuali in corso)
+        public final AtomicInteger reward;  // Ricompensa cumulativa del giocatore che ha eseguito la mossa
+
+        public TreeNode(int move, byte player, double prior) {
+            this.move = move;
+            this.player = player;
+            this.prior = prior;
+            this.children = null;
+            this.terminalReward = -1;
+            this.visits = new AtomicInteger(0);
+            this.reward = new AtomicInteger(0);
+        }
+
+        public boolean isTerminal() {
+            return terminalReward >= 0;
+        }
+    }
+
+    private final int rows, columns, target;
+    private final int threadsCount;
+    private final MoveEstimator moveEstimator;
+    private final double EXPLORATION;       // Costante di esplorazione di UCT
+    private final double PRIOR_WEIGHT;      // Peso del bias progressivo
+    private final int VIRTUAL_LOSS;         // Visite perse aggiunte ad un nodo durante la discesa
+    private final int EXPANSION_VISITS;     // Visite necessarie ad una foglia per essere espansa
+
+    private TreeNode root;
+    private byte[] rootCells;
+    private MNKCell[] rootMoves;
+    private int rootFreeCells;
+    private volatile long deadline;
+    private final LongAdder playouts;
+    private long searchTime;
+
+    /**
+     * @param threads Numero di thread da utilizzare per la ricerca
+     * @implNote Costo: Θ(1)
+     * */
+    public MonteCarloTreeSearch(int M, int N, int K, int threads) {
+        this.rows = M;
+        this.columns = N;
+        this.target = K;
+        this.threadsCount = Math.max(threads, 1);
+        this.moveEstimator = new MoveEstimator(K);
+
+        this.EXPLORATION = 1.0;
+        this.PRIOR_WEIGHT = 2.0;
+        this.VIRTUAL_LOSS = 3;
+        this.EXPANSION_VISITS = 4;
+
+        this.root = null;
+        this.playouts = new LongAdder();
+        this.searchTime = 0;
+    }
+
+    /**
+     * Restituisce il numero di simulazioni al secondo eseguite durante l'ultima ricerca
+     * @implNote Costo: O(threads)
+     * */
+    public double getPlayoutsPerSecond() {
+        return searchTime > 0 ? playouts.sum() * 1000.0 / searchTime : 0;
+    }
+
+    /**
+     * Restituisce il numero di simulazioni eseguite durante l'ultima ricerca
+     * @implNote Costo: O(threads)
+     * */
+    public long getPlayouts() {
+        return playouts.sum();
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private static byte toByte(MNKCellState state) {
+        return state == MNKCellState.P1 ? P1 : (state == MNKCellState.P2 ? P2 : FREE);
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private static MNKCellState toState(byte player) {
+        return player == P1 ? MNKCellState.P1 : MNKCellState.P2;
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private static byte other(byte player) {
+        return player == P1 ? P2 : P1;
+    }
+
+    /**
+     * Sposta la radice alla configurazione indicata, riutilizzando il sotto-albero se la configurazione
+     * è raggiungibile dalla radice precedente con le mosse giocate nel frattempo
+     * @param moves Mosse giocate fino alla configurazione corrente
+     * @implNote Costo: Θ(M*N)
+     * */
+    private void setRoot(MNKCell[] moves) {
+        TreeNode newRoot = null;
+
+        if (root != null && rootMoves != null && moves.length >= rootMoves.length) {
+            newRoot = root;
+            for (int i=rootMoves.length; i<moves.length && newRoot != null; i++) {
+                TreeNode[] children = newRoot.children;
+                int move = moves[i].i*columns + moves[i].j;
+                newRoot = null;
+                if (children == null) { break; }
+                for (TreeNode child : children) {
+                    if (child.move == move) { newRoot = child; break; }
+                }
+            }
+        }
+
+        if (newRoot == null) {
+            MNKCell last = moves.length > 0 ? moves[moves.length-1] : null;
+            newRoot = new TreeNode(last != null ? last.i*columns + last.j : NO_MOVE, last != null ? toByte(last.state) : P2, 0);
+        }
+
+        root = newRoot;
+        rootMoves = moves;
+        rootCells = new byte[rows*columns];
+        for (MNKCell move : moves) { rootCells[move.i*columns + move.j] = toByte(move.state); }
+        rootFreeCells = rows*columns - moves.length;
+    }
+
+    /**
+     * Esegue la ricerca fino alla scadenza e restituisce la mossa più visitata
+     * @param moves Mosse giocate fino alla configurazione corrente
+     * @param deadline Istante entro cui terminare la ricerca
+     * @implNote Costo: O( threads * simulazioni * M*N )
+     * */
+    public MNKCell search(MNKCell[] moves, long deadline) {
+        long start = System.currentTimeMillis();
+        setRoot(moves);
+        this.deadline = deadline;
+        playouts.reset();
+
+        Thread[] threads = new Thread[threadsCount];
+        for (int i=0; i<threads.length; i++) {
+            threads[i] = new Thread(new Worker());
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        searchTime = System.currentTimeMillis() - start;
+
+        // Mossa vincente immediata, altrimenti la più visitata
+        TreeNode best = null;
+        for (TreeNode child : root.children) {
+            if (child.terminalReward == WIN_REWARD) { best = child; break; }
+            if (best == null || child.visits.get() > best.visits.get()) { best = child; }
+        }
+
+        MNKCell move = new MNKCell(best.move / columns, best.move % columns, toState(best.player));
+        root = best;
+        rootMoves = Arrays.copyOf(moves, moves.length+1);
+        rootMoves[moves.length] = move;
+        return move;
+    }
+
+    /**
+     * Thread di ricerca: ripete selezione, espansione, simulazione e retropropagazione fino alla scadenza
+     * */
+    private class Worker implements Runnable {
+        private final byte[] cells;
+        private final BoardStatus board;
+        private final int[] freeCells;
+        private final ArrayList<TreeNode> path;
+
+        /**
+         * @implNote Costo: O( M*N + h(M + N) )   h = mosse giocate
+         * */
+        public Worker() {
+            this.cells = new byte[rows*columns];
+            this.board = new BoardStatus(columns, rows, target, MNKCellState.P1);
+            for (int i=0; i<rootCells.length; i++) {
+                if (rootCells[i] != FREE) { board.setAt(i % columns, i / columns, toState(rootCells[i])); }
+            }
+            this.freeCells = new int[rows*columns];
+            this.path = new ArrayList<>();
+        }
+
+        @Override
+        public void run() {
+            // Almeno un'iterazione per garantire l'espansione della radice
+            do {
+                iterate();
+                playouts.increment();
+            }
+            while (System.currentTimeMillis() < deadline);
+        }
+
+        /**
+         * @implNote Costo: O( h(M + N) + M*N )   h = altezza del percorso
+         * */
+        private void iterate() {
+            System.arraycopy(rootCells, 0, cells, 0, cells.length);
+            path.clear();
+
+            TreeNode node = root;
+            path.add(node);
+
+            // Selezione
+            while (node.children != null && !node.isTerminal()) {
+                node = select(node);
+                node.visits.addAndGet(VIRTUAL_LOSS);
+                play(node);
+                path.add(node);
+            }
+
+            // Espansione (solo dei nodi già simulati a sufficienza, la radice viene sempre espansa)
+            if (!node.isTerminal() && (node == root || node.visits.get() >= VIRTUAL_LOSS + EXPANSION_VISITS)) {
+                TreeNode[] children = expand(node);
+                if (children.length > 0) {
+                    node = select(node);
+                    node.visits.addAndGet(VIRTUAL_LOSS);
+                    play(node);
+                    path.add(node);
+                }
+            }
+
+            // Simulazione
+            byte winner;
+            if (node.isTerminal()) { winner = node.terminalReward == WIN_REWARD ? node.player : FREE; }
+            else { winner = playout(other(node.player)); }
+
+            // Retropropagazione
+            for (int i=path.size()-1; i>=0; i--) {
+                TreeNode iter = path.get(i);
+                iter.visits.addAndGet(i > 0 ? 1 - VIRTUAL_LOSS : 1);
+                iter.reward.addAndGet(winner == FREE ? DRAW_REWARD : (winner == iter.player ? WIN_REWARD : 0));
+                if (i > 0) { board.removeAt(iter.move % columns, iter.move / columns); }
+            }
+        }
+
+        /**
+         * Applica la mossa del nodo alla griglia e ne determina l'eventuale terminazione della partita
+         * (il nodo non è ancora stato aggiunto al percorso)
+         * @implNote Costo: O(M + N)
+         * */
+        private void play(TreeNode node) {
+            int x = node.move % columns, y = node.move / columns;
+            cells[node.move] = node.player;
+            board.setAt(x, y, toState(node.player));
+
+            if (node.terminalReward < 0) {
+                if (isWinningMove(x, y, node.player)) { node.terminalReward = WIN_REWARD; }
+                else if (path.size() == rootFreeCells) { node.terminalReward = DRAW_REWARD; }   // Griglia piena
+            }
+        }
+
+        /**
+         * Seleziona il figlio con il valore UCT (con bias progressivo) maggiore
+         * @implNote Costo: O(figli)
+         * */
+        private TreeNode select(TreeNode node) {
+            TreeNode[] children = node.children;
+            double logVisits = Math.log(Math.max(node.visits.get(), 1));
+            TreeNode best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (TreeNode child : children) {
+                int visits = child.visits.get();
+                double value;
+
+                if (child.terminalReward == WIN_REWARD) { return child; }   // Vittoria immediata
+                if (visits == 0) {
+                    value = Double.MAX_VALUE / 2 + child.prior;             // Prima i figli non visitati, in ordine di priorità
+                }
+                else {
+                    value = child.reward.get() / (2.0 * visits) +
+                            EXPLORATION * Math.sqrt(logVisits / visits) +
+                            PRIOR_WEIGHT * child.prior / (visits + 1);
+                }
+
+                if (value > bestValue) { bestValue = value; best = child; }
+            }
+            return best;
+        }
+
+        /**
+         * Genera i figli del nodo: le celle libere adiacenti a quelle occupate, stimate con MoveEstimator.
+         * Se esistono mosse vincenti o blocchi vengono generati solo quelli
+         * @implNote Costo: O( M*N + p(MK + NK) )   p = numero di celle adiacenti
+         * */
+        private TreeNode[] expand(TreeNode node) {
+            synchronized (node) {
+                if (node.children != null) { return node.children; }
+
+                byte player = other(node.player);
+                PriorityQueue<EstimatedPosition> estimations = new PriorityQueue<>();
+                boolean empty = true;
+
+                for (int y=0; y<rows; y++) {
+                    for (int x=0; x<columns; x++) {
+                        if (cells[y*columns + x] != FREE) { empty = false; continue; }
+                        if (!hasNeighbour(x, y)) { continue; }
+                        estimations.add(moveEstimator.estimate(board, x, y, toState(player), toState(other(player))));  // O(MK + NK)
+                    }
+                }
+                if (empty) { estimations.add(new EstimatedPosition(columns/2, rows/2, 0)); }
+
+                ArrayList<TreeNode> children = new ArrayList<>();
+                int topScore = estimations.isEmpty() ? 0 : estimations.peek().score;
+                while (!estimations.isEmpty()) {
+                    EstimatedPosition estimation = estimations.poll();
+                    // Se devo vincere o bloccare non considero altre mosse
+                    if (topScore >= moveEstimator.PRIORITY_2 && estimation.score != topScore) { break; }
+
+                    double prior = moveEstimator.isCritical(estimation) ? 1.0 : 0.5 * estimation.score / target;
+                    children.add(new TreeNode(estimation.y*columns + estimation.x, player, prior));
+                }
+
+                node.children = children.toArray(new TreeNode[0]);
+                return node.children;
+            }
+        }
+
+        /**
+         * Indica se la cella ha almeno una cella occupata adiacente
+         * @implNote Costo: Θ(1)
+         * */
+        private boolean hasNeighbour(int x, int y) {
+            for (int i=-1; i<=1; i++) {
+                for (int j=-1; j<=1; j++) {
+                    int toCheck_x = x + j, toCheck_y = y + i;
+                    if (toCheck_x >= 0 && toCheck_x < columns && toCheck_y >= 0 && toCheck_y < rows && cells[toCheck_y*columns + toCheck_x] != FREE) { return true; }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Indica se la mossa in (x, y) completa un allineamento di K celle del giocatore
+         * @implNote Costo: O(K)
+         * */
+        private boolean isWinningMove(int x, int y, byte player) {
+            final int[][] directions = { {1, 0}, {0, 1}, {1, 1}, {1, -1} };
+
+            for (int[] direction : directions) {
+                int aligned = 1;
+                for (int k=1; k<target && isPlayerAt(x + k*direction[0], y + k*direction[1], player); k++) { aligned++; }
+                for (int k=1; k<target && isPlayerAt(x - k*direction[0], y - k*direction[1], player); k++) { aligned++; }
+                if (aligned >= target) { return true; }
+            }
+            return false;
+        }
+
+        /**
+         * @implNote Costo: Θ(1)
+         * */
+        private boolean isPlayerAt(int x, int y, byte player) {
+            return x >= 0 && x < columns && y >= 0 && y < rows && cells[y*columns + x] == player;
+        }
+
+        /**
+         * Gioca una partita con mosse casuali fino al termine
+         * @param toMove Giocatore che deve muovere
+         * @return Il giocatore vincitore, FREE in caso di pareggio
+         * @implNote Costo: O(M*N * K)
+         * */
+        private byte playout(byte toMove) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int free = 0;
+            for (int i=0; i<cells.length; i++) {
+                if (cells[i] == FREE) { freeCells[free++] = i; }
+            }
+
+            byte player = toMove;
+            while (free > 0) {
+                int pick = random.nextInt(free);
+                int move = freeCells[pick];
+                freeCells[pick] = freeCells[--free];
+
+                cells[move] = player;
+                if (isWinningMove(move % columns, move / columns, player)) { return player; }
+                player = other(player);
+            }
+            return FREE;
+        }
+    }
+}
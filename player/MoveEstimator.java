@@ -0,0 +1,99 @@
+package player;
+
+import mnkgame.*;
+
+/**
+ * Stima dell'importanza di una cella libera per il giocatore che deve muovere.
+ * Ordine di priorità:
+ * - Mossa vincente
+ * - Blocco una mossa vincente dell'avversario
+ * - Imposto un vicolo cieco a mio favore
+ * - Blocco un vicolo cieco dell'avversario
+ * - Scelgo la mossa (possibilmente) migliore per me
+ * */
+public class MoveEstimator {
+    public final int PRIORITY_1, PRIORITY_2, PRIORITY_3, PRIORITY_4;
+    private final int target;
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    public MoveEstimator(int target) {
+        this.target = target;
+
+        this.PRIORITY_1 = target * 10000;
+        this.PRIORITY_2 = target * 1000;
+        this.PRIORITY_3 = target * 200;
+        this.PRIORITY_4 = target * 100;
+    }
+
+    /**
+     * Indica se la stima corrisponde ad una mossa critica (vittoria, blocco o vicolo cieco)
+     * @implNote Costo: Θ(1)
+     * */
+    public boolean isCritical(EstimatedPosition estimation) {
+        return estimation.score >= PRIORITY_4;
+    }
+
+    /**
+     * Indica se la cella, occupata dall'avversario, gli lascerebbe una sola mossa per vincere (mossa forzante dell'avversario)
+     * @implNote Costo: Θ(1)
+     * */
+    public boolean isOpponentThreat(EstimatedPosition estimation) {
+        return !isCritical(estimation) && estimation.getBlocked() == target - 2;
+    }
+
+    /**
+     * Stima l'importanza della cella libera (x, y)
+     * @param playingState Giocatore che deve muovere
+     * @param waitingState Avversario
+     * @implNote Costo: O(MK + NK)
+     * */
+    public EstimatedPosition estimate(BoardStatus board, int x, int y, MNKCellState playingState, MNKCellState waitingState) {
+        int currentPlayerMovesToWin = board.getMovesToWinAt(x, y, playingState);                        // Θ(K)
+        int oppositeMovesToWin = board.getMovesToWinAt(x, y, waitingState);                             // Θ(K)
+
+        EstimatedPosition estimation = null;
+
+        // Mossa vincente per me
+        if (currentPlayerMovesToWin == 1) {
+            estimation = new EstimatedPosition(x, y, PRIORITY_1);
+        }
+        // Blocca mossa vincente dell'avversario
+        else if (oppositeMovesToWin == 1) {
+            estimation =  new EstimatedPosition(x, y, PRIORITY_2);
+        }
+
+        // Cerco un vicolo cieco a mio favore
+        if (currentPlayerMovesToWin == 2) {
+            board.setAt(x, y, playingState);                                                            // O(M + N)
+            int[] possibilities = board.getAllPossibleWinningScenariosCountAt(x, y, playingState);      // O(MK + NK)
+            board.removeAt(x, y);                                                                       // O(M + N)
+
+            if (possibilities[1] > 1) {
+                estimation = new EstimatedPosition(x, y, PRIORITY_3);
+            }
+        }
+
+        // Cerco un vicolo cieco a mio sfavore
+        if (estimation == null && oppositeMovesToWin == 2) {
+            board.setAt(x, y, waitingState);                                                            // O(M + N)
+            int[] possibilities = board.getAllPossibleWinningScenariosCountAt(x, y, waitingState);      // O(MK + NK)
+            board.removeAt(x, y);                                                                       // O(M + N)
+
+            if (possibilities[1] > 1) {
+                estimation = new EstimatedPosition(x, y, PRIORITY_4);
+            }
+        }
+
+        // Valuto la qualità della mossa non critica
+        if (estimation == null) {
+            int aligned = target - currentPlayerMovesToWin + 1;
+            int blocked = target - oppositeMovesToWin;
+
+            estimation = new EstimatedPosition(x, y, aligned, blocked);
+        }
+
+        return estimation;
+    }
+}
@@ -0,0 +1,97 @@
+package player;
+
+import mnkgame.*;
+
+import java.util.Arrays;
+
+/**
+ * Euristiche di ordinamento delle mosse aggiornate dai tagli di alphabeta:
+ * - Mosse killer: per ogni ply, le ultime due mosse che hanno causato un taglio
+ * - Storico: per ogni giocatore e cella, quanto spesso (e a quale profondità) la mossa ha causato un taglio
+ * - Contromosse: per ogni giocatore e mossa precedente, l'ultima risposta che ha causato un taglio
+ * Le mosse sono indicate dall'indice della cella (NO_MOVE se assente)
+ * */
+public class MoveHistory {
+    public static final int NO_MOVE = -1;
+    private static final int KILLER_SLOTS = 2;
+
+    private final int[][] killers;       // [ply][slot]
+    private final int[][] history;       // [giocatore][cella]
+    private final int[][] counterMoves;  // [giocatore][cella della mossa precedente]
+
+    /**
+     * @param cells Numero di celle della griglia
+     * @implNote Costo: Θ(M*N)
+     * */
+    public MoveHistory(int cells) {
+        this.killers = new int[cells+1][KILLER_SLOTS];
+        this.history = new int[2][cells];
+        this.counterMoves = new int[2][cells];
+
+        for (int[] slots : killers) { Arrays.fill(slots, NO_MOVE); }
+        Arrays.fill(counterMoves[0], NO_MOVE);
+        Arrays.fill(counterMoves[1], NO_MOVE);
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private int sideOf(MNKCellState state) {
+        return state == MNKCellState.P1 ? 0 : 1;
+    }
+
+    /**
+     * Registra una mossa che ha causato un taglio
+     * @param ply Numero di mosse giocate dopo la mossa
+     * @param move Mossa che ha causato il taglio
+     * @param previousMove Mossa a cui si è risposto (NO_MOVE se assente)
+     * @param depth Profondità del sotto-albero in cui è avvenuto il taglio
+     * @implNote Costo: Θ(1)
+     * */
+    public void recordCutoff(int ply, MNKCellState state, int move, int previousMove, int depth) {
+        int side = sideOf(state);
+
+        if (ply < killers.length && killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        history[side][move] += depth * depth;
+
+        if (previousMove != NO_MOVE) {
+            counterMoves[side][previousMove] = move;
+        }
+    }
+
+    /**
+     * Restituisce la mossa killer dello slot indicato (0 = più recente)
+     * @implNote Costo: Θ(1)
+     * */
+    public int killer(int ply, int slot) {
+        return ply < killers.length ? killers[ply][slot] : NO_MOVE;
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    public int historyOf(MNKCellState state, int move) {
+        return history[sideOf(state)][move];
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    public int counterMove(MNKCellState state, int previousMove) {
+        return previousMove != NO_MOVE ? counterMoves[sideOf(state)][previousMove] : NO_MOVE;
+    }
+
+    /**
+     * Riduce il peso dello storico, in modo che le informazioni delle mosse precedenti contino meno di quelle recenti
+     * @implNote Costo: Θ(M*N)
+     * */
+    public void age() {
+        for (int[] side : history) {
+            for (int i=0; i<side.length; i++) { side[i] >>= 1; }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package player;
+
+import mnkgame.*;
+
+import java.util.Arrays;
+
+/**
+ * Nodi dell'albero di gioco memorizzati in vettori di primitivi sullo heap (la capacità cresce su richiesta).
+ * compact ricopia i nodi ancora raggiungibili in nuovi vettori e libera in blocco tutti gli altri
+ * */
+public class NodeArena extends NodeStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] parent, firstChild, nextSibling;
+    private int[] move;         // Indice della cella della mossa (riga*N + colonna)
+    private int[] score;
+    private int[] info;
+    private long[] hash;        // Hash di Zobrist della configurazione del nodo
+    private int size;
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    public NodeArena(int columns) {
+        super(columns);
+        allocate(INITIAL_CAPACITY);
+        this.size = 0;
+    }
+
+    /**
+     * @implNote Costo: Θ(capacity)
+     * */
+    private void allocate(int capacity) {
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        move = new int[capacity];
+        score = new int[capacity];
+        info = new int[capacity];
+        hash = new long[capacity];
+    }
+
+    /**
+     * Raddoppia la capacità dei vettori
+     * @implNote Costo: Θ(size)
+     * */
+    private void grow() {
+        int capacity = parent.length * 2;
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        move = Arrays.copyOf(move, capacity);
+        score = Arrays.copyOf(score, capacity);
+        info = Arrays.copyOf(info, capacity);
+        hash = Arrays.copyOf(hash, capacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public boolean isFull() {
+        return false;
+    }
+
+    @Override
+    public int create(int parentNode, MNKCell action) {
+        if (size == parent.length) { grow(); }
+
+        int node = size++;
+        parent[node] = parentNode;
+        firstChild[node] = NIL;
+        nextSibling[node] = NIL;
+        move[node] = action.i*columns + action.j;
+        score[node] = 0;
+        info[node] = initialInfo(action);
+        hash[node] = 0;
+        return node;
+    }
+
+    @Override public int parentOf(int node) { return parent[node]; }
+    @Override public int firstChildOf(int node) { return firstChild[node]; }
+    @Override public int nextSiblingOf(int node) { return nextSibling[node]; }
+    @Override public int moveOf(int node) { return move[node]; }
+    @Override public int scoreOf(int node) { return score[node]; }
+    @Override public void setScore(int node, int value) { score[node] = value; }
+    @Override public long hashOf(int node) { return hash[node]; }
+    @Override public void setHash(int node, long value) { hash[node] = value; }
+    @Override protected void setFirstChild(int node, int child) { firstChild[node] = child; }
+    @Override protected void setNextSibling(int node, int sibling) { nextSibling[node] = sibling; }
+    @Override protected int infoOf(int node) { return info[node]; }
+    @Override protected void setInfo(int node, int value) { info[node] = value; }
+
+    @Override
+    public int compact(int root) {
+        int[] oldParent = parent, oldFirstChild = firstChild, oldNextSibling = nextSibling, oldMove = move, oldScore = score, oldInfo = info;
+        long[] oldHash = hash;
+
+        // Antenati (dalla radice della partita)
+        int ancestors = 0;
+        for (int iter = oldParent[root]; iter != NIL; iter = oldParent[iter]) { ancestors++; }
+        int[] chain = new int[ancestors];
+        for (int iter = oldParent[root], i = ancestors-1; iter != NIL; iter = oldParent[iter], i--) { chain[i] = iter; }
+
+        // Nodi del sotto-albero in ordine di visita in ampiezza
+        int[] queue = new int[size - ancestors];
+        int head = 0, tail = 0;
+        queue[tail++] = root;
+        while (head < tail) {
+            for (int child = oldFirstChild[queue[head++]]; child != NIL; child = oldNextSibling[child]) { queue[tail++] = child; }
+        }
+
+        allocate(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(ancestors + tail) * 2));
+        size = 0;
+
+        // Gli antenati hanno un solo figlio (il successivo della catena)
+        for (int i=0; i<ancestors; i++) {
+            copy(chain[i], size, i > 0 ? size-1 : NIL, oldMove, oldScore, oldInfo, oldHash);
+            firstChild[size] = size+1;
+            size++;
+        }
+
+        // Il sotto-albero è contiguo per livelli: i figli di ogni nodo occupano posizioni consecutive
+        int newRoot = size;
+        int nextFree = size + 1;
+        copy(root, newRoot, ancestors > 0 ? newRoot-1 : NIL, oldMove, oldScore, oldInfo, oldHash);
+        size = newRoot + tail;
+        for (int i=0; i<tail; i++) {
+            int node = newRoot + i;
+            int previous = NIL;
+            for (int child = oldFirstChild[queue[i]]; child != NIL; child = oldNextSibling[child]) {
+                copy(child, nextFree, node, oldMove, oldScore, oldInfo, oldHash);
+                linkChild(node, previous, nextFree);
+                previous = nextFree;
+                nextFree++;
+            }
+        }
+
+        return newRoot;
+    }
+
+    /**
+     * Copia un nodo dai vettori precedenti ad un compact, senza figli
+     * @implNote Costo: Θ(1)
+     * */
+    private void copy(int from, int to, int newParent, int[] oldMove, int[] oldScore, int[] oldInfo, long[] oldHash) {
+        parent[to] = newParent;
+        firstChild[to] = NIL;
+        nextSibling[to] = NIL;
+        move[to] = oldMove[from];
+        score[to] = oldScore[from];
+        info[to] = oldInfo[from];
+        hash[to] = oldHash[from];
+    }
+}
@@ -0,0 +1,9 @@
+package player;
+
+/**
+ * Memoria utilizzata per i nodi dell'albero di gioco
+ * */
+public enum NodeStorage {
+    HEAP,       // Vettori di primitivi sullo heap, la capacità cresce su richiesta
+    OFF_HEAP    // Buffer diretti di capacità fissata, ignorati dal garbage collector
+}
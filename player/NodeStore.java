@@ -0,0 +1,148 @@
+package player;
+
+import mnkgame.*;
+
+/**
+ * Memoria dei nodi dell'albero di gioco: un nodo è identificato dal suo indice.
+ * I figli di un nodo sono collegati tramite primo figlio / fratello successivo.
+ * Informazioni del nodo codificate in un int: | figli completi (1) | simmetria canonica (3) | limite (2) | da rivalutare (1) | giocatore P1 (1) | risultato dimostrato (1) | alphabeta (1) | profondità (8) |
+ * I nodi non vengono liberati singolarmente: compact mantiene i nodi ancora raggiungibili e libera in blocco tutti gli altri
+ * */
+public abstract class NodeStore {
+    public static final int NIL = -1;
+
+    protected static final int DEPTH_MASK = 0xFF;
+    protected static final int ALPHABETA_BIT = 1 << 8;
+    protected static final int SOLVED_BIT = 1 << 9;
+    protected static final int P1_BIT = 1 << 10;
+    protected static final int DIRTY_BIT = 1 << 11;
+    protected static final int BOUND_SHIFT = 12;
+    protected static final int BOUND_MASK = 0x3 << BOUND_SHIFT;
+    protected static final int SYMMETRY_SHIFT = 14;
+    protected static final int SYMMETRY_MASK = 0x7 << SYMMETRY_SHIFT;
+    protected static final int COMPLETE_BIT = 1 << 17;
+
+    protected final int columns;
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    protected NodeStore(int columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Restituisce il numero di nodi allocati
+     * @implNote Costo: Θ(1)
+     * */
+    public abstract int size();
+
+    /**
+     * Libera in blocco tutti i nodi
+     * @implNote Costo: Θ(1)
+     * */
+    public abstract void clear();
+
+    /**
+     * Indica se la memoria dei nodi è esaurita (la ricerca deve interrompere l'espansione dell'albero)
+     * @implNote Costo: Θ(1)
+     * */
+    public abstract boolean isFull();
+
+    /**
+     * Alloca un nodo senza figli (non viene aggiunto ai figli del padre)
+     * @implNote Costo (ammortizzato): Θ(1)
+     * */
+    public abstract int create(int parentNode, MNKCell action);
+
+    /**
+     * Mantiene solo gli antenati del nodo indicato e il suo sotto-albero, liberando in blocco tutti gli altri nodi.
+     * Gli indici dei nodi cambiano: gli unici indici validi sono quello restituito e quelli ottenuti a partire da esso
+     * @return Il nuovo indice del nodo
+     * @implNote Costo: Θ(h + n)   h = antenati  |  n = nodi del sotto-albero
+     * */
+    public abstract int compact(int root);
+
+    /**
+     * Funzioni di accesso ai campi memorizzati di un nodo
+     * @implNote Costo: Θ(1)
+     * */
+    public abstract int parentOf(int node);
+    public abstract int firstChildOf(int node);
+    public abstract int nextSiblingOf(int node);
+    public abstract int moveOf(int node);
+    public abstract int scoreOf(int node);
+    public abstract void setScore(int node, int value);
+    public abstract long hashOf(int node);
+    public abstract void setHash(int node, long value);
+    protected abstract void setFirstChild(int node, int child);
+    protected abstract void setNextSibling(int node, int sibling);
+    protected abstract int infoOf(int node);
+    protected abstract void setInfo(int node, int value);
+
+    /**
+     * Funzioni di accesso ai campi derivati di un nodo
+     * @implNote Costo: Θ(1)
+     * */
+    public boolean isLeaf(int node) { return firstChildOf(node) == NIL; }
+    public int columnOf(int node) { return moveOf(node) % columns; }
+    public int rowOf(int node) { return moveOf(node) / columns; }
+    public MNKCellState stateOf(int node) { return (infoOf(node) & P1_BIT) != 0 ? MNKCellState.P1 : MNKCellState.P2; }
+    public MNKCell actionOf(int node) { return new MNKCell(rowOf(node), columnOf(node), stateOf(node)); }
+    public int depthOf(int node) { return infoOf(node) & DEPTH_MASK; }
+    public void setDepth(int node, int depth) { setInfo(node, (infoOf(node) & ~DEPTH_MASK) | Math.min(Math.max(depth, 0), DEPTH_MASK)); }
+    public boolean isAlphabeta(int node) { return (infoOf(node) & ALPHABETA_BIT) != 0; }
+    public void setAlphabeta(int node, boolean value) { setInfo(node, value ? infoOf(node) | ALPHABETA_BIT : infoOf(node) & ~ALPHABETA_BIT); }
+    public boolean isSolved(int node) { return (infoOf(node) & SOLVED_BIT) != 0; }
+    public void setSolved(int node, boolean value) { setInfo(node, value ? infoOf(node) | SOLVED_BIT : infoOf(node) & ~SOLVED_BIT); }
+    public boolean isComplete(int node) { return (infoOf(node) & COMPLETE_BIT) != 0; }
+    public void setComplete(int node, boolean value) { setInfo(node, value ? infoOf(node) | COMPLETE_BIT : infoOf(node) & ~COMPLETE_BIT); }
+    public boolean isDirty(int node) { return (infoOf(node) & DIRTY_BIT) != 0; }
+    public void setDirty(int node, boolean value) { setInfo(node, value ? infoOf(node) | DIRTY_BIT : infoOf(node) & ~DIRTY_BIT); }
+    public int boundOf(int node) { return (infoOf(node) & BOUND_MASK) >>> BOUND_SHIFT; }
+    public void setBound(int node, int bound) { setInfo(node, (infoOf(node) & ~BOUND_MASK) | (bound << BOUND_SHIFT)); }
+    public int symmetryOf(int node) { return (infoOf(node) & SYMMETRY_MASK) >>> SYMMETRY_SHIFT; }
+    public void setSymmetry(int node, int symmetry) { setInfo(node, (infoOf(node) & ~SYMMETRY_MASK) | (symmetry << SYMMETRY_SHIFT)); }
+
+    /**
+     * Aggiunge un figlio al nodo dopo il fratello indicato (NIL se è il primo figlio)
+     * @implNote Costo: Θ(1)
+     * */
+    public void linkChild(int node, int previousSibling, int child) {
+        if (previousSibling == NIL) { setFirstChild(node, child); }
+        else { setNextSibling(previousSibling, child); }
+    }
+
+    /**
+     * Cancella la lista di figli e imposta come figlio il nodo in input
+     * @implNote Costo: Θ(1)
+     * */
+    public void setAsOnlyChild(int node, int child) {
+        setFirstChild(node, child);
+        setNextSibling(child, NIL);
+    }
+
+    /**
+     * Rimuove tutti i figli del nodo (la memoria viene recuperata dal prossimo compact)
+     * @implNote Costo: Θ(1)
+     * */
+    public void clearChildren(int node) {
+        setFirstChild(node, NIL);
+    }
+
+    /**
+     * Indica se il nodo contiene la mossa indicata
+     * @implNote Costo: Θ(1)
+     * */
+    public boolean hasAction(int node, MNKCell action) {
+        return moveOf(node) == action.i*columns + action.j && stateOf(node) == action.state;
+    }
+
+    /**
+     * Codifica il giocatore della mossa nelle informazioni iniziali di un nodo (un nuovo nodo va sempre valutato)
+     * @implNote Costo: Θ(1)
+     * */
+    protected static int initialInfo(MNKCell action) {
+        return (action.state == MNKCellState.P1 ? P1_BIT : 0) | DIRTY_BIT;
+    }
+}
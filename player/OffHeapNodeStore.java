@@ -0,0 +1,146 @@
+package player;
+
+import mnkgame.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Nodi dell'albero di gioco memorizzati fuori dallo heap, in due buffer diretti di capacità fissata alla creazione.
+ * Il contenuto dei buffer non viene analizzato dal garbage collector: l'albero può crescere fino a decine di milioni
+ * di nodi senza pause dovute alla raccolta.
+ * compact ricopia i nodi ancora raggiungibili nel buffer di riserva e scambia i due buffer (nessuna nuova allocazione)
+ * Struttura di un nodo: | parent (4) | firstChild (4) | nextSibling (4) | move (4) | score (4) | info (4) | hash (8) |
+ * */
+public class OffHeapNodeStore extends NodeStore {
+    private static final int PARENT = 0, FIRST_CHILD = 4, NEXT_SIBLING = 8, MOVE = 12, SCORE = 16, INFO = 20, HASH = 24;
+    private static final int NODE_BYTES = 32;
+    private static final int RESERVE = 64;     // Nodi riservati alle operazioni fuori dalla ricerca (mosse dell'avversario, cambio di radice)
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / NODE_BYTES;
+
+    private final int capacity;
+    private ByteBuffer nodes;       // Buffer in uso
+    private ByteBuffer spare;       // Buffer di destinazione del prossimo compact
+    private int size;
+
+    /**
+     * @param capacity Numero massimo di nodi memorizzabili
+     * @implNote Costo: Θ(capacity)
+     * */
+    public OffHeapNodeStore(int columns, int capacity) {
+        super(columns);
+        if (capacity <= RESERVE || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacità non valida: " + capacity);
+        }
+        this.capacity = capacity;
+        this.nodes = ByteBuffer.allocateDirect(capacity * NODE_BYTES).order(ByteOrder.nativeOrder());
+        this.spare = ByteBuffer.allocateDirect(capacity * NODE_BYTES).order(ByteOrder.nativeOrder());
+        this.size = 0;
+    }
+
+    /**
+     * Restituisce il numero massimo di nodi memorizzabili
+     * @implNote Costo: Θ(1)
+     * */
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public boolean isFull() {
+        return size >= capacity - RESERVE;
+    }
+
+    @Override
+    public int create(int parentNode, MNKCell action) {
+        if (size == capacity) { throw new IllegalStateException("Memoria dei nodi esaurita"); }
+
+        int node = size++;
+        int base = node * NODE_BYTES;
+        nodes.putInt(base + PARENT, parentNode);
+        nodes.putInt(base + FIRST_CHILD, NIL);
+        nodes.putInt(base + NEXT_SIBLING, NIL);
+        nodes.putInt(base + MOVE, action.i*columns + action.j);
+        nodes.putInt(base + SCORE, 0);
+        nodes.putInt(base + INFO, initialInfo(action));
+        nodes.putLong(base + HASH, 0);
+        return node;
+    }
+
+    @Override public int parentOf(int node) { return nodes.getInt(node*NODE_BYTES + PARENT); }
+    @Override public int firstChildOf(int node) { return nodes.getInt(node*NODE_BYTES + FIRST_CHILD); }
+    @Override public int nextSiblingOf(int node) { return nodes.getInt(node*NODE_BYTES + NEXT_SIBLING); }
+    @Override public int moveOf(int node) { return nodes.getInt(node*NODE_BYTES + MOVE); }
+    @Override public int scoreOf(int node) { return nodes.getInt(node*NODE_BYTES + SCORE); }
+    @Override public void setScore(int node, int value) { nodes.putInt(node*NODE_BYTES + SCORE, value); }
+    @Override public long hashOf(int node) { return nodes.getLong(node*NODE_BYTES + HASH); }
+    @Override public void setHash(int node, long value) { nodes.putLong(node*NODE_BYTES + HASH, value); }
+    @Override protected void setFirstChild(int node, int child) { nodes.putInt(node*NODE_BYTES + FIRST_CHILD, child); }
+    @Override protected void setNextSibling(int node, int sibling) { nodes.putInt(node*NODE_BYTES + NEXT_SIBLING, sibling); }
+    @Override protected int infoOf(int node) { return nodes.getInt(node*NODE_BYTES + INFO); }
+    @Override protected void setInfo(int node, int value) { nodes.putInt(node*NODE_BYTES + INFO, value); }
+
+    /**
+     * Il sotto-albero viene ricopiato in ampiezza direttamente nel buffer di destinazione, che funge anche da coda:
+     * finché un nodo copiato non è stato elaborato, il suo campo firstChild contiene l'indice del nodo originale
+     * */
+    @Override
+    public int compact(int root) {
+        ByteBuffer from = nodes, to = spare;
+
+        // Antenati (dalla radice della partita): hanno un solo figlio, il successivo della catena
+        int ancestors = 0;
+        for (int iter = parentOf(root); iter != NIL; iter = parentOf(iter)) { ancestors++; }
+        int position = ancestors - 1;
+        for (int iter = parentOf(root); iter != NIL; iter = parentOf(iter), position--) {
+            copy(from, iter, to, position, position > 0 ? position-1 : NIL);
+            to.putInt(position*NODE_BYTES + FIRST_CHILD, position+1);
+        }
+
+        int newRoot = ancestors;
+        copy(from, root, to, newRoot, ancestors > 0 ? newRoot-1 : NIL);
+        int nextFree = newRoot + 1;
+        for (int node = newRoot; node < nextFree; node++) {
+            int original = to.getInt(node*NODE_BYTES + FIRST_CHILD);
+            int previous = NIL;
+            to.putInt(node*NODE_BYTES + FIRST_CHILD, NIL);
+            for (int child = original; child != NIL; child = from.getInt(child*NODE_BYTES + NEXT_SIBLING)) {
+                copy(from, child, to, nextFree, node);
+                if (previous == NIL) { to.putInt(node*NODE_BYTES + FIRST_CHILD, nextFree); }
+                else { to.putInt(previous*NODE_BYTES + NEXT_SIBLING, nextFree); }
+                previous = nextFree;
+                nextFree++;
+            }
+        }
+
+        nodes = to;
+        spare = from;
+        size = nextFree;
+        return newRoot;
+    }
+
+    /**
+     * Copia un nodo tra due buffer; firstChild mantiene l'indice del primo figlio nel buffer di origine
+     * @implNote Costo: Θ(1)
+     * */
+    private static void copy(ByteBuffer from, int node, ByteBuffer to, int position, int newParent) {
+        int src = node * NODE_BYTES, dst = position * NODE_BYTES;
+        to.putInt(dst + PARENT, newParent);
+        to.putInt(dst + FIRST_CHILD, from.getInt(src + FIRST_CHILD));
+        to.putInt(dst + NEXT_SIBLING, NIL);
+        to.putInt(dst + MOVE, from.getInt(src + MOVE));
+        to.putInt(dst + SCORE, from.getInt(src + SCORE));
+        to.putInt(dst + INFO, from.getInt(src + INFO));
+        to.putLong(dst + HASH, from.getLong(src + HASH));
+    }
+}
@@ -0,0 +1,285 @@
+package player;
+
+import mnkgame.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Libro delle aperture: mossa migliore per le configurazioni iniziali, calcolata offline con ricerche profonde.
+ * Le configurazioni sono identificate dall'hash di Zobrist della loro forma canonica (vedi Symmetry), le mosse sono memorizzate
+ * nelle coordinate della forma canonica. Le voci sono ordinate per hash e il file viene mappato in memoria: una ricerca
+ * nel libro costa O(log(n)) accessi.
+ * Struttura del file: | MAGIC (4) | M (4) | N (4) | K (4) | numero di voci (4) | riservato (12) | voci: hash (8) + mossa (4) |
+ * */
+public class OpeningBook {
+    public static final String DIRECTORY = "books";
+
+    private static final int MAGIC = 0x4D4E4B42;
+    private static final int HEADER_BYTES = 32;
+    private static final int ENTRY_BYTES = 12;
+
+    private final int columns;
+    private final Zobrist zobrist;
+    private final Symmetry symmetry;
+    private final MappedByteBuffer book;
+    private final int entries;
+
+    /**
+     * @implNote Costo: Θ(1) [Chiavi e simmetrie già calcolate]
+     * */
+    private OpeningBook(int M, int N, MappedByteBuffer book) {
+        this.columns = N;
+        this.zobrist = Zobrist.of(N, M);
+        this.symmetry = Symmetry.of(N, M);
+        this.book = book;
+        this.entries = book.getInt(16);
+    }
+
+    /**
+     * Restituisce il file del libro di una configurazione
+     * @implNote Costo: Θ(1)
+     * */
+    public static File fileOf(int M, int N, int K) {
+        return new File(DIRECTORY, M + "_" + N + "_" + K + ".book");
+    }
+
+    /**
+     * Mappa in memoria (in sola lettura) il libro della configurazione indicata
+     * @return Il libro, null se non è disponibile
+     * @implNote Costo: Θ(M*N)
+     * */
+    public static OpeningBook open(int M, int N, int K) {
+        File file = fileOf(M, N, K);
+        if (!file.isFile()) { return null; }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() < HEADER_BYTES) { return null; }
+
+            MappedByteBuffer book = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            book.order(ByteOrder.BIG_ENDIAN);
+            if (book.getInt(0) != MAGIC || book.getInt(4) != M || book.getInt(8) != N || book.getInt(12) != K) { return null; }
+            if (channel.size() != HEADER_BYTES + (long)book.getInt(16) * ENTRY_BYTES) { return null; }
+            return new OpeningBook(M, N, book);
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Restituisce il numero di configurazioni nel libro
+     * @implNote Costo: Θ(1)
+     * */
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * Calcola gli hash di tutte le immagini simmetriche della configurazione
+     * @return hashes[s] = hash dell'immagine tramite la simmetria s
+     * @implNote Costo: Θ(|MC|) [Al più 8 simmetrie]
+     * */
+    private static long[] hashesOf(MNKCell[] MC, int columns, Zobrist zobrist, Symmetry symmetry) {
+        long[] hashes = new long[symmetry.count()];
+        for (MNKCell move : MC) {
+            int cell = move.i*columns + move.j;
+            for (int s=0; s<hashes.length; s++) {
+                hashes[s] ^= zobrist.keyOf(symmetry.apply(s, cell), move.state);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Restituisce la simmetria che porta la configurazione nella sua forma canonica (stessa scelta di BoardStatus.getCanonicalSymmetry)
+     * @implNote Costo: Θ(1) [Al più 8 simmetrie]
+     * */
+    private static int canonicalOf(long[] hashes) {
+        int best = Symmetry.IDENTITY;
+        for (int s=1; s<hashes.length; s++) {
+            if (hashes[s] < hashes[best]) { best = s; }
+        }
+        return best;
+    }
+
+    /**
+     * Restituisce la mossa del libro per la configurazione indicata
+     * @param MC Mosse giocate
+     * @param state Giocatore che deve muovere
+     * @return La mossa, null se la configurazione non è nel libro
+     * @implNote Costo: O(|MC| + log(n))   n = voci del libro
+     * */
+    public MNKCell lookup(MNKCell[] MC, MNKCellState state) {
+        long[] hashes = hashesOf(MC, columns, zobrist, symmetry);
+        int canonical = canonicalOf(hashes);
+        long key = hashes[canonical];
+
+        int low = 0, high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = book.getLong(HEADER_BYTES + mid * ENTRY_BYTES);
+
+            if (midKey < key) { low = mid + 1; }
+            else if (midKey > key) { high = mid - 1; }
+            else {
+                int move = symmetry.invert(canonical, book.getInt(HEADER_BYTES + mid * ENTRY_BYTES + 8));
+                return new MNKCell(move / columns, move % columns, state);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Costruisce il libro di una configurazione: le configurazioni considerate partono dalla mossa centrale e ogni mossa
+     * successiva è adiacente ad una pedina già piazzata (configurazioni simmetriche sono analizzate una sola volta).
+     * Ogni configurazione viene analizzata da GameTree con il tempo indicato, in parallelo su più thread
+     * @param plies Numero massimo di pedine delle configurazioni nel libro
+     * @param seconds Tempo di analisi di ogni configurazione
+     * @implNote Costo: O( positions * seconds / threads )
+     * */
+    public static void build(int M, int N, int K, int plies, int seconds, int threads) throws IOException, InterruptedException {
+        Zobrist zobrist = Zobrist.of(N, M);
+        Symmetry symmetry = Symmetry.of(N, M);
+
+        // Configurazioni canoniche da analizzare, in ordine di numero di pedine
+        ArrayList<MNKCell[]> positions = new ArrayList<>();
+        Map<Long, MNKCell[]> layer = new HashMap<>();
+        MNKCell[] opening = { new MNKCell(M/2, N/2, MNKCellState.P1) };
+        long[] openingHashes = hashesOf(opening, N, zobrist, symmetry);
+        layer.put(openingHashes[canonicalOf(openingHashes)], opening);
+        for (int ply = 1; ply <= plies && ply < M*N && !layer.isEmpty(); ply++) {
+            for (MNKCell[] position : layer.values()) {
+                if (!isOver(position, M, N, K)) { positions.add(position); }
+            }
+
+            Map<Long, MNKCell[]> next = new HashMap<>();
+            for (MNKCell[] position : layer.values()) {
+                if (isOver(position, M, N, K)) { continue; }
+
+                boolean[] occupied = new boolean[M*N];
+                for (MNKCell move : position) { occupied[move.i*N + move.j] = true; }
+                MNKCellState state = ply % 2 == 0 ? MNKCellState.P1 : MNKCellState.P2;
+
+                for (int cell=0; cell<M*N; cell++) {
+                    if (occupied[cell] || !isAdjacent(cell, occupied, M, N)) { continue; }
+
+                    MNKCell[] child = Arrays.copyOf(position, position.length + 1);
+                    child[position.length] = new MNKCell(cell / N, cell % N, state);
+                    long[] hashes = hashesOf(child, N, zobrist, symmetry);
+                    next.putIfAbsent(hashes[canonicalOf(hashes)], child);
+                }
+            }
+            layer = next;
+        }
+
+        // Analisi parallela: ogni thread preleva la prossima configurazione non analizzata
+        TreeMap<Long, Integer> entries = new TreeMap<>();
+        AtomicInteger nextPosition = new AtomicInteger(0);
+        Thread[] workers = new Thread[threads];
+        for (int t=0; t<threads; t++) {
+            workers[t] = new Thread(() -> {
+                int i;
+                while ((i = nextPosition.getAndIncrement()) < positions.size()) {
+                    MNKCell[] position = positions.get(i);
+                    boolean p1ToMove = position.length % 2 == 0;
+                    GameTree tree = new GameTree(M, N, K, p1ToMove, seconds, 1, ParallelMode.LAZY_SMP, SearchAlgorithm.PVS, false, NodeStorage.HEAP);
+                    MNKCell move = tree.analyze(position);
+
+                    long[] hashes = hashesOf(position, N, zobrist, symmetry);
+                    int canonical = canonicalOf(hashes);
+                    synchronized (entries) {
+                        entries.put(hashes[canonical], symmetry.apply(canonical, move.i*N + move.j));
+                        System.out.println("[" + entries.size() + "/" + positions.size() + "] " + Arrays.toString(position) + " -> " + move);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) { worker.join(); }
+
+        write(M, N, K, entries);
+    }
+
+    /**
+     * Indica se l'ultima mossa della configurazione ha concluso la partita
+     * @implNote Costo: O( M*N + |MC|*K )
+     * */
+    private static boolean isOver(MNKCell[] MC, int M, int N, int K) {
+        BoardStatus board = new BoardStatus(N, M, K, MNKCellState.P1);
+        for (MNKCell move : MC) { board.setAt(move.j, move.i, move.state); }
+
+        MNKCell last = MC[MC.length-1];
+        return board.statusAt(last.j, last.i) != MNKGameState.OPEN || MC.length == M*N;
+    }
+
+    /**
+     * Indica se la cella è adiacente ad una cella occupata
+     * @implNote Costo: Θ(1)
+     * */
+    private static boolean isAdjacent(int cell, boolean[] occupied, int M, int N) {
+        int i = cell / N, j = cell % N;
+        for (int di = -1; di <= 1; di++) {
+            for (int dj = -1; dj <= 1; dj++) {
+                int ni = i + di, nj = j + dj;
+                if ((di != 0 || dj != 0) && ni >= 0 && ni < M && nj >= 0 && nj < N && occupied[ni*N + nj]) { return true; }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scrive il libro ordinato per hash
+     * @implNote Costo: Θ(n)
+     * */
+    private static void write(int M, int N, int K, TreeMap<Long, Integer> entries) throws IOException {
+        File file = fileOf(M, N, K);
+        if (file.getParentFile() != null) { file.getParentFile().mkdirs(); }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + entries.size() * ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC).putInt(M).putInt(N).putInt(K).putInt(entries.size());
+        buffer.position(HEADER_BYTES);
+        for (Map.Entry<Long, Integer> entry : entries.entrySet()) {
+            buffer.putLong(entry.getKey()).putInt(entry.getValue());
+        }
+        buffer.flip();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            while (buffer.hasRemaining()) { channel.write(buffer); }
+        }
+    }
+
+    /**
+     * Costruttore dei libri: java player.OpeningBook plies seconds M,N,K [M,N,K ...]
+     * */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.out.println("Uso: java player.OpeningBook plies seconds M,N,K [M,N,K ...]");
+            return;
+        }
+
+        int plies = Integer.parseInt(args[0]);
+        int seconds = Integer.parseInt(args[1]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i=2; i<args.length; i++) {
+            String[] config = args[i].split(",");
+            int M = Integer.parseInt(config[0]), N = Integer.parseInt(config[1]), K = Integer.parseInt(config[2]);
+
+            long start = System.currentTimeMillis();
+            build(M, N, K, plies, seconds, threads);
+            System.out.println(fileOf(M, N, K) + " costruito in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+}
@@ -3,46 +3,94 @@ package player;
 import mnkgame.*;
 
 public class OurPlayer implements MNKPlayer {
+    private static final int SEARCH_THREADS = Runtime.getRuntime().availableProcessors(); // Thread utilizzati dalla ricerca
+    private static final ParallelMode PARALLEL_MODE = ParallelMode.LAZY_SMP;                // Modalità di utilizzo dei thread
+    private static final SearchAlgorithm SEARCH_ALGORITHM = SearchAlgorithm.PVS;            // Algoritmo di valutazione dell'albero
+    private static final boolean LATE_MOVE_REDUCTIONS = false;                              // Profondità ridotta per le mosse non critiche meno promettenti
+    private static final NodeStorage NODE_STORAGE = NodeStorage.HEAP;                       // Memoria dei nodi dell'albero
+    private static final boolean PONDERING = true;                                          // Ricerca durante il turno dell'avversario
+    private static final boolean VERBOSE = true;                                            // Stampa la tabella utilizzata o la forma dell'albero scelta dalla calibrazione
+
     private int rows, columns, target;
     private boolean first;
     private GameTree gameTree;
+    private Tablebase tablebase;    // Valori esatti di tutte le configurazioni (null se non disponibile per la griglia)
+    private OpeningBook book;       // Mosse precalcolate per le configurazioni iniziali (null se non disponibile per la griglia)
 
     public OurPlayer() {
     }
 
     /**
-     * @implNote Costo: Θ(1)
+     * @implNote Costo: O(CALIBRATION_MAX_TIME)
      * */
     public void initPlayer(int M, int N, int K, boolean first, int timeout_in_secs) {
+        // Lo stesso giocatore può essere riutilizzato per più partite: il pondering della partita precedente
+        // non deve sovrapporsi alla calibrazione e alla ricerca della nuova partita
+        if (this.gameTree != null) { this.gameTree.stopPondering(); }
+
         this.rows = M;
         this.columns = N;
         this.target = K;
         this.first = first;
-        this.gameTree = new GameTree(M, N, K, first);
+
+        // Con una tabella disponibile ogni mossa è ottima e la ricerca non serve
+        this.tablebase = Tablebase.open(M, N, K);
+        if (this.tablebase != null) {
+            this.gameTree = null;
+            if (VERBOSE) { System.err.println(playerName() + ": " + Tablebase.fileOf(M, N, K) + " (" + this.tablebase.resultOf(new MNKCell[0]) + ")"); }
+            return;
+        }
+
+        this.book = OpeningBook.open(M, N, K);
+        if (VERBOSE && this.book != null) { System.err.println(playerName() + ": " + OpeningBook.fileOf(M, N, K) + " (" + this.book.size() + " configurazioni)"); }
+
+        this.gameTree = new GameTree(M, N, K, first, timeout_in_secs, SEARCH_THREADS, PARALLEL_MODE, SEARCH_ALGORITHM, LATE_MOVE_REDUCTIONS, NODE_STORAGE);
+        this.gameTree.calibrate();
+        if (VERBOSE) { System.err.println(playerName() + ": " + this.gameTree.getSearchShape()); }
     }
 
     /**
      * @implNote Costo (pessimo): O( h(MK + NK + log(h)) )
      * */
     public MNKCell selectCell(MNKCell[] FC, MNKCell[] MC) {
+        if (this.tablebase != null) { return this.tablebase.bestMove(FC, MC); }                 // Θ(|MC| + |FC|*K*8)
+
         MNKCell outCell;
+        this.gameTree.startTimer();
+
+        // Mossa precalcolata (se la configurazione è nel libro delle aperture)
+        MNKCell bookCell = this.book != null ? this.book.lookup(MC, this.first ? MNKCellState.P1 : MNKCellState.P2) : null;    // O(|MC| + log(n))
 
         if (this.gameTree.isEmpty()) {
             if (this.first) {
                 // Se gioco per primo piazzo la mossa al centro della griglia
                 outCell = new MNKCell(rows/2, columns/2, MNKCellState.P1);
                 this.gameTree.generate(outCell);                                        // O( h(MK + NK + log(h)) )
+                return startPondering(outCell);
             }
-            else {
-                this.gameTree.generate(MC[MC.length-1]);                                // O( h(MK + NK + log(h)) )
-                outCell = this.gameTree.nextMove();                                     // O( h(MK + NK + log(h)) )
-            }
+            this.gameTree.generate(MC[MC.length-1]);                                    // O( h(MK + NK + log(h)) )
         }
         else {
             this.gameTree.setOpponentMove(MC[MC.length-1]);                             // O( h(MK + NK + log(h)) )
+        }
+
+        if (bookCell != null) {
+            outCell = bookCell;
+            this.gameTree.playMove(outCell);                                            // O(h + n)
+        }
+        else {
             outCell = this.gameTree.nextMove();                                         // O( h(MK + NK + log(h)) )
         }
+        return startPondering(outCell);
+    }
+
+    /**
+     * Avvia il pondering (se abilitato) e restituisce la mossa selezionata
+     * @implNote Costo: Θ(1)
+     * */
+    private MNKCell startPondering(MNKCell outCell) {
 
+        if (PONDERING) { this.gameTree.startPondering(); }
         return outCell;
     }
 
@@ -0,0 +1,9 @@
+package player;
+
+/**
+ * Modalità di parallelizzazione della ricerca
+ * */
+public enum ParallelMode {
+    LAZY_SMP,               // Thread di supporto indipendenti che condividono la tabella delle trasposizioni
+    YOUNG_BROTHERS_WAIT     // Alphabeta/PVS con work-stealing: i fratelli vengono valutati in parallelo dopo il primo figlio
+}
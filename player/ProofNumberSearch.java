@@ -0,0 +1,327 @@
+package player;
+
+import mnkgame.*;
+
+import java.util.Arrays;
+
+/**
+ * Risolutore esatto basato su proof-number search in profondità (df-pn).
+ * Il valore di una configurazione viene determinato con due dimostrazioni: "chi deve muovere vince" e, se refutata,
+ * "l'avversario vince" (se refutata anche questa la partita è patta).
+ * I numeri di prova e refutazione sono memorizzati in una tabella a dimensione fissa per ciascuna delle due dimostrazioni,
+ * indicizzata dall'hash di Zobrist. Le tabelle vengono mantenute tra una ricerca e l'altra.
+ * Coordinate: x = colonna, y = riga (come in BoardStatus)
+ * */
+public class ProofNumberSearch {
+    public static final int INFINITY = Integer.MAX_VALUE / 4;
+    private static final int NO_MOVE = -1;
+
+    private final int columns, rows, target;
+    private final Zobrist zobrist;
+    private final long[][] keys;        // [giocatore che attacca][indice]
+    private final int[][] proofs;       // [giocatore che attacca][indice]
+    private final int[][] disproofs;    // [giocatore che attacca][indice]
+    private final int tableMask;
+
+    private BoardStatus board;
+    private MNKCellState attacker, defender;
+    private int side;                   // Indice della tabella della dimostrazione in corso
+    private int freeCells;
+    private long deadline;
+    private long visitedNodes, solvingTime;
+    private int bestMove;
+    private int attackerMovesToWin;     // Numero minimo di mosse necessarie all'attaccante per vincere (calcolato da generateMoves)
+
+    /**
+     * @param tableSizeLog2 Logaritmo in base 2 del numero di voci di ciascuna tabella
+     * @implNote Costo: Θ(2^tableSizeLog2)
+     * */
+    public ProofNumberSearch(int columns, int rows, int target, int tableSizeLog2) {
+        this.columns = columns;
+        this.rows = rows;
+        this.target = target;
+        this.zobrist = Zobrist.of(columns, rows);
+
+        this.keys = new long[2][1 << tableSizeLog2];
+        this.proofs = new int[2][1 << tableSizeLog2];
+        this.disproofs = new int[2][1 << tableSizeLog2];
+        this.tableMask = (1 << tableSizeLog2) - 1;
+
+        this.visitedNodes = 0;
+        this.solvingTime = 0;
+        this.bestMove = NO_MOVE;
+    }
+
+    /**
+     * Restituisce il numero di nodi visitati durante l'ultima ricerca
+     * @implNote Costo: Θ(1)
+     * */
+    public long getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    /**
+     * Restituisce il tempo (in millisecondi) impiegato dall'ultima ricerca
+     * @implNote Costo: Θ(1)
+     * */
+    public long getSolvingTime() {
+        return solvingTime;
+    }
+
+    /**
+     * Determina il valore esatto della configurazione
+     * @param board Configurazione da risolvere (viene ripristinata al termine)
+     * @param toMove Giocatore che deve muovere
+     * @param deadline Istante entro cui terminare la ricerca
+     * @return Il risultato della partita giocata in modo ottimo da entrambi, OPEN se non determinato entro la scadenza
+     * @implNote Costo (pessimo): O( p! * MNK )   p = numero di celle libere
+     * */
+    public MNKGameState solve(BoardStatus board, MNKCellState toMove, long deadline) {
+        long start = System.currentTimeMillis();
+        MNKCellState opponent = toMove == MNKCellState.P1 ? MNKCellState.P2 : MNKCellState.P1;
+        MNKGameState result;
+
+        this.board = board;
+        this.deadline = deadline;
+        this.visitedNodes = 0;
+        this.bestMove = NO_MOVE;
+        this.freeCells = 0;
+        for (int x=0; x<columns; x++) {
+            for (int y=0; y<rows; y++) {
+                if (board.isFreeAt(x, y)) { freeCells++; }
+            }
+        }
+
+        try {
+            if (freeCells == 0) {
+                result = MNKGameState.DRAW;
+            }
+            else if (prove(toMove, true)) {
+                result = toMove == MNKCellState.P1 ? MNKGameState.WINP1 : MNKGameState.WINP2;
+            }
+            else if (prove(opponent, false)) {
+                result = opponent == MNKCellState.P1 ? MNKGameState.WINP1 : MNKGameState.WINP2;
+            }
+            else {
+                result = MNKGameState.DRAW;
+            }
+        }
+        catch (SearchTimeoutException e) {
+            result = MNKGameState.OPEN;
+            bestMove = NO_MOVE;
+        }
+
+        solvingTime = System.currentTimeMillis() - start;
+        return result;
+    }
+
+    /**
+     * Restituisce la mossa ottima trovata dall'ultima ricerca: vincente se la configurazione è vinta,
+     * non perdente se è patta (null se la configurazione è persa o non risolta)
+     * @implNote Costo: Θ(1)
+     * */
+    public MNKCell getBestMove(MNKCellState toMove) {
+        if (bestMove == NO_MOVE) { return null; }
+        return new MNKCell(bestMove / columns, bestMove % columns, toMove);
+    }
+
+    /**
+     * Dimostra o refuta la vittoria del giocatore indicato
+     * @param attackerToMove Indica se alla radice muove l'attaccante
+     * @return true se la vittoria è dimostrata, false se è refutata
+     * @implNote Costo (pessimo): O( p! * MNK )
+     * */
+    private boolean prove(MNKCellState attacker, boolean attackerToMove) {
+        this.attacker = attacker;
+        this.defender = attacker == MNKCellState.P1 ? MNKCellState.P2 : MNKCellState.P1;
+        this.side = attacker == MNKCellState.P1 ? 0 : 1;
+
+        int[] rootValues = mid(attackerToMove, INFINITY, INFINITY);
+        boolean proven = rootValues[0] == 0;
+
+        // Mossa ottima della radice: vincente se chi muove attacca, non perdente se chi muove difende
+        if (proven == attackerToMove) {
+            bestMove = rootValues[2];
+        }
+        return proven;
+    }
+
+    /**
+     * Interrompe la ricerca se il tempo a disposizione è terminato
+     * @implNote Costo: Θ(1)
+     * */
+    private void checkTimeout() {
+        visitedNodes++;
+        if ((visitedNodes & 0x3FF) == 0 && System.currentTimeMillis() >= deadline) {
+            throw new SearchTimeoutException();
+        }
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private static int add(int a, int b) {
+        return (int)Math.min((long)a + b, INFINITY);
+    }
+
+    /**
+     * Restituisce le mosse da considerare per il giocatore:
+     * se può vincere solo la mossa vincente, se l'avversario minaccia di vincere solo i blocchi, altrimenti tutte le celle libere.
+     * Aggiorna attackerMovesToWin (esatto solo se non viene restituita una mossa vincente)
+     * @implNote Costo (pessimo): O( MNK )
+     * */
+    private int[] generateMoves(MNKCellState mover) {
+        MNKCellState waiting = mover == MNKCellState.P1 ? MNKCellState.P2 : MNKCellState.P1;
+        int[] free = new int[freeCells];
+        int[] blocks = new int[freeCells];
+        int freeCount = 0, blockCount = 0;
+        attackerMovesToWin = Integer.MAX_VALUE;
+
+        for (int y=0; y<rows; y++) {
+            for (int x=0; x<columns; x++) {
+                if (!board.isFreeAt(x, y)) { continue; }
+                attackerMovesToWin = Math.min(attackerMovesToWin, board.getMovesToWinAt(x, y, attacker));   // Θ(K)
+
+                if (board.getMovesToWinAt(x, y, mover) == 1) { return new int[]{ y*columns + x }; }
+                if (board.getMovesToWinAt(x, y, waiting) == 1) { blocks[blockCount++] = y*columns + x; }
+                free[freeCount++] = y*columns + x;
+            }
+        }
+
+        if (blockCount > 0) { return Arrays.copyOf(blocks, blockCount); }
+        return Arrays.copyOf(free, freeCount);
+    }
+
+    /**
+     * Elaborazione di un nodo (multiple iterative deepening): espande il figlio più dimostrativo finché
+     * i numeri di prova e refutazione del nodo restano sotto le soglie
+     * @param orNode Indica se nel nodo muove l'attaccante
+     * @return { numero di prova, numero di refutazione, mossa migliore }
+     * @implNote Costo (pessimo): O( p! * MNK )
+     * */
+    private int[] mid(boolean orNode, int thresholdProof, int thresholdDisproof) {
+        checkTimeout();
+
+        final MNKCellState mover = orNode ? attacker : defender;
+        final long hash = board.getHash();
+        int[] moves = generateMoves(mover);
+
+        // Configurazione morta: all'attaccante non restano abbastanza mosse per completare un allineamento
+        int attackerMovesLeft = orNode ? (freeCells+1) / 2 : freeCells / 2;
+        if (moves.length > 1 && attackerMovesToWin > attackerMovesLeft) {
+            store(hash, INFINITY, 0);
+            return new int[]{ INFINITY, 0, moves[0] };
+        }
+
+        int[] proof = new int[moves.length], disproof = new int[moves.length];
+        boolean[] terminal = new boolean[moves.length];
+
+        // Valuta i figli terminali (vittoria di chi muove o griglia piena)
+        for (int i=0; i<moves.length; i++) {
+            int x = moves[i] % columns, y = moves[i] / columns;
+            board.setAt(x, y, mover);
+            freeCells--;
+            boolean win = board.getMovesToWinAt(x, y, mover) == 0;
+            if (win || freeCells == 0) {
+                terminal[i] = true;
+                boolean attackerWins = win && orNode;
+                proof[i] = attackerWins ? 0 : INFINITY;
+                disproof[i] = attackerWins ? INFINITY : 0;
+            }
+            board.removeAt(x, y);
+            freeCells++;
+        }
+
+        // Valori iniziali dei figli non terminali dalla tabella
+        for (int i=0; i<moves.length; i++) {
+            if (terminal[i]) { continue; }
+            long childHash = hash ^ zobrist.keyOf(moves[i] % columns, moves[i] / columns, mover);
+            int index = (int)childHash & tableMask;
+            if (keys[side][index] == childHash) {
+                proof[i] = proofs[side][index];
+                disproof[i] = disproofs[side][index];
+            }
+            else {
+                proof[i] = 1;
+                disproof[i] = 1;
+            }
+        }
+
+        while (true) {
+            // Nodo OR: prova = min, refutazione = somma | Nodo AND: prova = somma, refutazione = min
+            int nodeProof = orNode ? INFINITY : 0, nodeDisproof = orNode ? 0 : INFINITY;
+            int best = 0, secondBest = INFINITY;
+            for (int i=0; i<moves.length; i++) {
+                int selector = orNode ? proof[i] : disproof[i];
+                int bestSelector = orNode ? proof[best] : disproof[best];
+                if (i > 0 && selector < bestSelector) { secondBest = bestSelector; best = i; }
+                else if (i > 0) { secondBest = Math.min(secondBest, selector); }
+
+                if (orNode) { nodeProof = Math.min(nodeProof, proof[i]); nodeDisproof = add(nodeDisproof, disproof[i]); }
+                else { nodeProof = add(nodeProof, proof[i]); nodeDisproof = Math.min(nodeDisproof, disproof[i]); }
+            }
+
+            if (nodeProof >= thresholdProof || nodeDisproof >= thresholdDisproof || nodeProof == 0 || nodeDisproof == 0) {
+                store(hash, nodeProof, nodeDisproof);
+                return new int[]{ nodeProof, nodeDisproof, moves[best] };
+            }
+
+            // Soglie del figlio più dimostrativo
+            int childThresholdProof, childThresholdDisproof;
+            if (orNode) {
+                childThresholdProof = Math.min(thresholdProof, add(secondBest, 1));
+                childThresholdDisproof = add(thresholdDisproof - nodeDisproof, disproof[best]);
+            }
+            else {
+                childThresholdProof = add(thresholdProof - nodeProof, proof[best]);
+                childThresholdDisproof = Math.min(thresholdDisproof, add(secondBest, 1));
+            }
+
+            int x = moves[best] % columns, y = moves[best] / columns;
+            board.setAt(x, y, mover);
+            freeCells--;
+            try {
+                // I valori restituiti sono utilizzati direttamente: la voce in tabella potrebbe essere già stata sostituita
+                int[] childValues = mid(!orNode, childThresholdProof, childThresholdDisproof);
+                proof[best] = childValues[0];
+                disproof[best] = childValues[1];
+            }
+            finally {
+                board.removeAt(x, y);
+                freeCells++;
+            }
+        }
+    }
+
+    /**
+     * Memorizza i numeri di prova e refutazione di una configurazione. Una voce dimostrata o refutata
+     * viene sostituita solo da un'altra voce dimostrata o refutata
+     * @implNote Costo: Θ(1)
+     * */
+    private void store(long hash, int proof, int disproof) {
+        int index = (int)hash & tableMask;
+        boolean solved = proof == 0 || disproof == 0;
+        boolean oldSolved = keys[side][index] != 0 && (proofs[side][index] == 0 || disproofs[side][index] == 0);
+
+        if (solved || !oldSolved || keys[side][index] == hash) {
+            keys[side][index] = hash;
+            proofs[side][index] = proof;
+            disproofs[side][index] = disproof;
+        }
+    }
+
+    /**
+     * Risolve la configurazione iniziale di una partita (M, N, K)
+     * Utilizzo: java player.ProofNumberSearch M N K [timeout in secondi]
+     * */
+    public static void main(String[] args) {
+        int M = Integer.parseInt(args[0]), N = Integer.parseInt(args[1]), K = Integer.parseInt(args[2]);
+        int timeout = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+
+        ProofNumberSearch solver = new ProofNumberSearch(N, M, K, 20);
+        MNKGameState result = solver.solve(new BoardStatus(N, M, K, MNKCellState.P1), MNKCellState.P1, System.currentTimeMillis() + timeout*1000L);
+
+        System.out.println(M + "," + N + "," + K + ": " + (result == MNKGameState.OPEN ? "?" : result) +
+                           " (" + solver.getVisitedNodes() + " nodi, " + solver.getSolvingTime() + " ms)");
+    }
+}
@@ -0,0 +1,10 @@
+package player;
+
+/**
+ * Algoritmo utilizzato per valutare l'albero di gioco
+ * */
+public enum SearchAlgorithm {
+    ALPHABETA,  // Alphabeta pruning a finestra completa
+    PVS,        // Principal Variation Search (NegaScout): finestra nulla per i figli successivi al primo
+    MTDF        // MTD(f): sequenza di valutazioni a finestra nulla che converge al valore minimax
+}
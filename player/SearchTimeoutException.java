@@ -0,0 +1,13 @@
+package player;
+
+/**
+ * Segnala che il budget (tempo o nodi) a disposizione per una ricerca è terminato.
+ * Non registra lo stack trace: viene lanciata ad ogni scadenza e catturata dalla ricerca che l'ha generata
+ * */
+class SearchTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SearchTimeoutException() {
+        super(null, null, false, false);
+    }
+}
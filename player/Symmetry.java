@@ -0,0 +1,87 @@
+package player;
+
+/**
+ * Simmetrie della griglia: 8 per le griglie quadrate (rotazioni e riflessioni), 4 per quelle rettangolari
+ * (identità, rotazione di 180°, riflessioni orizzontale e verticale).
+ * Ogni simmetria è una permutazione precalcolata degli indici delle celle (riga*N + colonna); la simmetria 0 è l'identità
+ * */
+public class Symmetry {
+    public static final int IDENTITY = 0;
+    private static Symmetry cached = null;
+
+    private final int columns, rows;
+    private final int[][] permutation;  // permutation[s][c] = immagine della cella c tramite la simmetria s
+    private final int[][] inverse;      // inverse[s][c] = cella la cui immagine tramite la simmetria s è c
+
+    /**
+     * @implNote Costo: Θ(M*N)
+     * */
+    private Symmetry(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+
+        int count = columns == rows ? 8 : 4;
+        this.permutation = new int[count][columns*rows];
+        this.inverse = new int[count][columns*rows];
+
+        for (int y=0; y<rows; y++) {
+            for (int x=0; x<columns; x++) {
+                int cell = y*columns + x;
+                int mx = columns-1 - x, my = rows-1 - y;
+
+                permutation[0][cell] = cell;                        // Identità
+                permutation[1][cell] = my*columns + mx;             // Rotazione di 180°
+                permutation[2][cell] = y*columns + mx;              // Riflessione orizzontale
+                permutation[3][cell] = my*columns + x;              // Riflessione verticale
+                if (count == 8) {
+                    permutation[4][cell] = x*columns + y;           // Trasposizione
+                    permutation[5][cell] = mx*columns + my;         // Anti-trasposizione
+                    permutation[6][cell] = x*columns + my;          // Rotazione di 90°
+                    permutation[7][cell] = mx*columns + y;          // Rotazione di 270°
+                }
+            }
+        }
+
+        for (int s=0; s<count; s++) {
+            for (int cell=0; cell<columns*rows; cell++) {
+                inverse[s][permutation[s][cell]] = cell;
+            }
+        }
+    }
+
+    /**
+     * Restituisce le simmetrie per una griglia di determinate dimensioni
+     * @implNote Costo (pessimo): Θ(M*N)<br/>
+     *           Costo (ottimo): Θ(1) [Simmetrie già calcolate]
+     * */
+    public static synchronized Symmetry of(int columns, int rows) {
+        if (cached == null || cached.columns != columns || cached.rows != rows) {
+            cached = new Symmetry(columns, rows);
+        }
+        return cached;
+    }
+
+    /**
+     * Restituisce il numero di simmetrie della griglia (identità compresa)
+     * @implNote Costo: Θ(1)
+     * */
+    public int count() {
+        return permutation.length;
+    }
+
+    /**
+     * Restituisce l'immagine della cella tramite la simmetria indicata
+     * @implNote Costo: Θ(1)
+     * */
+    public int apply(int symmetry, int cell) {
+        return permutation[symmetry][cell];
+    }
+
+    /**
+     * Restituisce la cella la cui immagine tramite la simmetria indicata è la cella in input
+     * @implNote Costo: Θ(1)
+     * */
+    public int invert(int symmetry, int cell) {
+        return inverse[symmetry][cell];
+    }
+}
@@ -0,0 +1,358 @@
+package player;
+
+import mnkgame.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Tabella dei valori esatti di tutte le configurazioni di una griglia piccola, calcolata offline tramite analisi retrograda
+ * e memorizzata in un file mappato in memoria.
+ * Una configurazione è codificata in base 3 (cella riga*N + colonna -> cifra 0 = libera, 1 = P1, 2 = P2), l'indice
+ * ottenuto individua 2 bit con il valore per il giocatore che deve muovere (P1 se le pedine dei giocatori sono in egual numero).
+ * Aggiungere una pedina aumenta l'indice, quindi i livelli (numero di pedine) vengono calcolati dalla griglia piena a quella vuota:
+ * ogni livello dipende solo dal successivo ed è calcolato in parallelo. Il file registra l'ultimo livello completato,
+ * per cui una generazione interrotta riprende dal livello successivo.
+ * Struttura del file: | MAGIC (4) | M (4) | N (4) | K (4) | prossimo livello da calcolare, -1 se completa (4) | riservato (12) | valori |
+ * */
+public class Tablebase {
+    public static final int MAX_CELLS = 16;     // Con più celle la tabella densa supera la memoria ragionevolmente mappabile (3^16 / 4 byte = 10.8 MB)
+    public static final String DIRECTORY = "tablebases";
+
+    private static final int MAGIC = 0x4D4E4B54;
+    private static final int HEADER_BYTES = 32;
+    private static final int LAYER_OFFSET = 16;
+    private static final int COMPLETE = -1;
+    private static final int UNKNOWN = 0, WIN = 1, LOSS = 2, DRAW = 3;      // Valori per il giocatore che deve muovere
+
+    private final int rows, columns, target;
+    private final int[] powers;         // powers[c] = 3^c
+    private final int[][] windows;      // Celle di ogni allineamento di K celle della griglia
+    private final MappedByteBuffer table;
+
+    /**
+     * @implNote Costo: Θ(M*N*K)
+     * */
+    private Tablebase(int M, int N, int K, MappedByteBuffer table) {
+        this.rows = M;
+        this.columns = N;
+        this.target = K;
+        this.table = table;
+
+        this.powers = new int[M*N + 1];
+        powers[0] = 1;
+        for (int c=1; c<=M*N; c++) { powers[c] = powers[c-1] * 3; }
+
+        this.windows = windowsOf(M, N, K);
+    }
+
+    /**
+     * Restituisce le celle di tutti gli allineamenti di K celle (righe, colonne, diagonali e anti-diagonali)
+     * @implNote Costo: Θ(M*N*K)
+     * */
+    private static int[][] windowsOf(int M, int N, int K) {
+        int[][] directions = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+        ArrayList<int[]> out = new ArrayList<>();
+
+        for (int i=0; i<M; i++) {
+            for (int j=0; j<N; j++) {
+                for (int[] d : directions) {
+                    int endI = i + d[0]*(K-1), endJ = j + d[1]*(K-1);
+                    if (endI < 0 || endI >= M || endJ < 0 || endJ >= N) { continue; }
+
+                    int[] window = new int[K];
+                    for (int k=0; k<K; k++) { window[k] = (i + d[0]*k)*N + (j + d[1]*k); }
+                    out.add(window);
+                }
+            }
+        }
+        return out.toArray(new int[0][]);
+    }
+
+    /**
+     * Indica se la configurazione è gestibile da una tabella
+     * @implNote Costo: Θ(1)
+     * */
+    public static boolean isSupported(int M, int N, int K) {
+        return M*N <= MAX_CELLS && K <= Math.max(M, N);
+    }
+
+    /**
+     * Restituisce il file della tabella di una configurazione
+     * @implNote Costo: Θ(1)
+     * */
+    public static File fileOf(int M, int N, int K) {
+        return new File(DIRECTORY, M + "_" + N + "_" + K + ".tb");
+    }
+
+    /**
+     * Mappa in memoria (in sola lettura) la tabella completa della configurazione indicata
+     * @return La tabella, null se non è disponibile o non è completa
+     * @implNote Costo: Θ(M*N*K)
+     * */
+    public static Tablebase open(int M, int N, int K) {
+        File file = fileOf(M, N, K);
+        if (!isSupported(M, N, K) || !file.isFile()) { return null; }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() != HEADER_BYTES + tableBytes(M*N)) { return null; }
+
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            table.order(ByteOrder.BIG_ENDIAN);
+            if (!hasHeader(table, M, N, K) || table.getInt(LAYER_OFFSET) != COMPLETE) { return null; }
+            return new Tablebase(M, N, K, table);
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private static long tableBytes(int cells) {
+        long positions = 1;
+        for (int c=0; c<cells; c++) { positions *= 3; }
+        return (positions + 3) / 4;
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private static boolean hasHeader(MappedByteBuffer table, int M, int N, int K) {
+        return table.getInt(0) == MAGIC && table.getInt(4) == M && table.getInt(8) == N && table.getInt(12) == K;
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private int valueAt(int index) {
+        return (table.get(HEADER_BYTES + index/4) >>> ((index%4) * 2)) & 0x3;
+    }
+
+    /**
+     * Restituisce il risultato della partita a partire dalla configurazione indicata, con gioco ottimo da entrambe le parti
+     * @param MC Mosse giocate
+     * @implNote Costo: Θ(|MC|)
+     * */
+    public MNKGameState resultOf(MNKCell[] MC) {
+        int index = 0;
+        for (MNKCell move : MC) {
+            index += (move.state == MNKCellState.P1 ? 1 : 2) * powers[move.i*columns + move.j];
+        }
+
+        boolean p1ToMove = MC.length % 2 == 0;
+        switch (valueAt(index)) {
+            case WIN: return p1ToMove ? MNKGameState.WINP1 : MNKGameState.WINP2;
+            case LOSS: return p1ToMove ? MNKGameState.WINP2 : MNKGameState.WINP1;
+            case DRAW: return MNKGameState.DRAW;
+            default: return MNKGameState.OPEN;
+        }
+    }
+
+    /**
+     * Restituisce la mossa ottima per la configurazione indicata: una vittoria immediata, altrimenti una mossa che mantiene la vittoria,
+     * altrimenti una mossa che mantiene il pareggio, altrimenti una qualsiasi cella libera
+     * @param FC Celle libere
+     * @param MC Mosse giocate
+     * @implNote Costo: Θ(|MC| + |FC|*K*8)
+     * */
+    public MNKCell bestMove(MNKCell[] FC, MNKCell[] MC) {
+        MNKCellState toMove = MC.length % 2 == 0 ? MNKCellState.P1 : MNKCellState.P2;
+        int digit = toMove == MNKCellState.P1 ? 1 : 2;
+
+        int[] cells = new int[rows*columns];
+        int index = 0;
+        for (MNKCell move : MC) {
+            int cell = move.i*columns + move.j;
+            cells[cell] = move.state == MNKCellState.P1 ? 1 : 2;
+            index += cells[cell] * powers[cell];
+        }
+
+        MNKCell draw = null;
+        for (MNKCell free : FC) {
+            int cell = free.i*columns + free.j;
+            cells[cell] = digit;
+            boolean wins = hasAlignment(cells, cell);
+            cells[cell] = 0;
+
+            if (wins) { return new MNKCell(free.i, free.j, toMove); }
+
+            int childValue = valueAt(index + digit * powers[cell]);
+            if (childValue == LOSS) { return new MNKCell(free.i, free.j, toMove); }
+            if (childValue == DRAW && draw == null) { draw = new MNKCell(free.i, free.j, toMove); }
+        }
+
+        if (draw != null) { return draw; }
+        return new MNKCell(FC[0].i, FC[0].j, toMove);
+    }
+
+    /**
+     * Indica se la pedina nella cella indicata completa un allineamento di K pedine
+     * @implNote Costo: O(windows)
+     * */
+    private boolean hasAlignment(int[] cells, int cell) {
+        for (int[] window : windows) {
+            boolean contains = false, aligned = true;
+            for (int c : window) {
+                contains |= c == cell;
+                aligned &= cells[c] == cells[cell];
+            }
+            if (contains && aligned) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Genera (o riprende la generazione di) la tabella di una configurazione
+     * @param threads Numero di thread utilizzati per ogni livello
+     * @implNote Costo: Θ( 3^(M*N) * M*N * (M*N*K) / threads )
+     * */
+    public static void generate(int M, int N, int K, int threads) throws IOException, InterruptedException {
+        if (!isSupported(M, N, K)) { throw new IllegalArgumentException("Configurazione non supportata: " + M + "," + N + "," + K); }
+
+        File file = fileOf(M, N, K);
+        if (file.getParentFile() != null) { file.getParentFile().mkdirs(); }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            long size = HEADER_BYTES + tableBytes(M*N);
+            boolean resume = channel.size() == size;
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            table.order(ByteOrder.BIG_ENDIAN);
+
+            if (!resume || !hasHeader(table, M, N, K)) {
+                // Nuova tabella: il file viene azzerato (tutte le configurazioni UNKNOWN)
+                for (long i=0; i<size; i++) { table.put((int)i, (byte)0); }
+                table.putInt(0, MAGIC);
+                table.putInt(4, M);
+                table.putInt(8, N);
+                table.putInt(12, K);
+                table.putInt(LAYER_OFFSET, M*N);
+                table.force();
+            }
+
+            Tablebase tablebase = new Tablebase(M, N, K, table);
+            int positions = tablebase.powers[M*N];
+            for (int layer = table.getInt(LAYER_OFFSET); layer >= 0; layer--) {
+                long start = System.currentTimeMillis();
+                final int stones = layer;
+
+                // Intervalli di indici allineati a 4 configurazioni: ogni byte della tabella è scritto da un solo thread
+                int chunk = ((positions / threads) + 4) & ~3;
+                Thread[] workers = new Thread[threads];
+                for (int t=0; t<threads; t++) {
+                    final int from = Math.min(positions, t*chunk), to = Math.min(positions, (t+1)*chunk);
+                    workers[t] = new Thread(() -> tablebase.solveLayer(stones, from, to));
+                    workers[t].start();
+                }
+                for (Thread worker : workers) { worker.join(); }
+
+                table.force();
+                table.putInt(LAYER_OFFSET, layer > 0 ? layer-1 : COMPLETE);
+                table.force();
+                System.out.println("Livello " + layer + " completato (" + (System.currentTimeMillis() - start) + " ms)");
+            }
+        }
+    }
+
+    /**
+     * Calcola i valori delle configurazioni con il numero di pedine indicato nell'intervallo di indici [from, to).
+     * Le configurazioni con una pedina in più devono essere già calcolate
+     * @implNote Costo: Θ( (to - from) * (M*N + windows*K) )
+     * */
+    private void solveLayer(int stones, int from, int to) {
+        int cells = rows*columns;
+        int p1Stones = (stones + 1) / 2, p2Stones = stones / 2;
+        int toMove = p1Stones == p2Stones ? 1 : 2;
+        int justMoved = 3 - toMove;
+
+        // Cifre della configurazione corrente, aggiornate come un contatore in base 3
+        int[] digits = new int[cells];
+        int p1 = 0, p2 = 0;
+        for (int c=0, rest=from; c<cells; c++, rest/=3) {
+            digits[c] = rest % 3;
+            if (digits[c] == 1) { p1++; }
+            else if (digits[c] == 2) { p2++; }
+        }
+
+        byte packed = 0;
+        for (int index = from; index < to; index++) {
+            int value = UNKNOWN;
+
+            if (p1 == p1Stones && p2 == p2Stones) {
+                if (hasAnyAlignment(digits, justMoved)) {
+                    value = LOSS;
+                }
+                else if (stones == cells) {
+                    value = DRAW;
+                }
+                else {
+                    boolean draw = false;
+                    value = LOSS;
+                    for (int c=0; c<cells && value != WIN; c++) {
+                        if (digits[c] != 0) { continue; }
+                        int childValue = valueAt(index + toMove * powers[c]);
+                        if (childValue == LOSS) { value = WIN; }
+                        else if (childValue == DRAW) { draw = true; }
+                    }
+                    if (value != WIN && draw) { value = DRAW; }
+                }
+            }
+
+            // I valori di 4 configurazioni consecutive vengono scritti insieme (solo per il livello corrente)
+            int shift = (index % 4) * 2;
+            if (shift == 0) { packed = table.get(HEADER_BYTES + index/4); }
+            if (value != UNKNOWN) { packed = (byte)((packed & ~(0x3 << shift)) | (value << shift)); }
+            if (shift == 6 || index == to-1) { table.put(HEADER_BYTES + index/4, packed); }
+
+            // Configurazione successiva
+            for (int c=0; c<cells; c++) {
+                if (digits[c] == 1) { p1--; }
+                else if (digits[c] == 2) { p2--; }
+
+                digits[c] = (digits[c] + 1) % 3;
+
+                if (digits[c] == 1) { p1++; }
+                else if (digits[c] == 2) { p2++; }
+                if (digits[c] != 0) { break; }
+            }
+        }
+    }
+
+    /**
+     * Indica se il giocatore indicato (cifra 1 o 2) ha allineato K pedine
+     * @implNote Costo: O(windows*K)
+     * */
+    private boolean hasAnyAlignment(int[] digits, int player) {
+        for (int[] window : windows) {
+            boolean aligned = true;
+            for (int c : window) {
+                if (digits[c] != player) { aligned = false; break; }
+            }
+            if (aligned) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Generatore delle tabelle: java player.Tablebase M N K [threads]
+     * */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.out.println("Uso: java player.Tablebase M N K [threads]");
+            return;
+        }
+
+        int M = Integer.parseInt(args[0]), N = Integer.parseInt(args[1]), K = Integer.parseInt(args[2]);
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.currentTimeMillis();
+        generate(M, N, K, threads);
+        System.out.println(fileOf(M, N, K) + " generata in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
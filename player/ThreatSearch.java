@@ -0,0 +1,303 @@
+package player;
+
+import mnkgame.*;
+
+import java.util.ArrayList;
+
+/**
+ * Ricerca nello spazio delle minacce (threat-space search): esplora solo sequenze forzanti dell'attaccante.
+ * - VCF (victory by continuous fours): ogni mossa dell'attaccante crea una cella vincente, l'avversario è costretto a bloccarla
+ * - VCT (victory by continuous threats): sono ammesse anche mosse che preparano una doppia minaccia,
+ *   l'avversario può rispondere con una qualsiasi delle mosse che interagiscono con la minaccia
+ * Le mosse successive alla prima sono cercate solo sulle linee che passano per l'ultima mossa dell'attaccante
+ * (espansione per dipendenza), per cui vengono generati pochi nodi rispetto ad una ricerca completa.
+ * Coordinate: x = colonna, y = riga (come in BoardStatus)
+ * */
+public class ThreatSearch {
+    private final int columns, rows, target;
+    private final int MAX_VCF_DEPTH;    // Numero massimo di mosse dell'attaccante in una sequenza VCF
+    private final int MAX_VCT_DEPTH;    // Numero massimo di mosse dell'attaccante in una sequenza VCT
+    private final long MAX_NODES;       // Numero massimo di nodi visitabili da una ricerca
+
+    private BoardStatus board;
+    private MNKCellState attacker, defender;
+    private long deadline;
+    private long visitedNodes;
+    private final ArrayList<Coord> attackerMoves, defenderMoves;   // Mosse giocate durante la ricerca (in ordine)
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    public ThreatSearch(int columns, int rows, int target) {
+        this.columns = columns;
+        this.rows = rows;
+        this.target = target;
+        this.MAX_VCF_DEPTH = Math.min(columns*rows / 2, 20);
+        this.MAX_VCT_DEPTH = 4;
+        this.MAX_NODES = 200000;
+
+        this.attackerMoves = new ArrayList<>();
+        this.defenderMoves = new ArrayList<>();
+        this.visitedNodes = 0;
+    }
+
+    /**
+     * Restituisce il numero di nodi visitati durante l'ultima ricerca
+     * @implNote Costo: Θ(1)
+     * */
+    public long getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    /**
+     * Cerca una sequenza forzante vincente per il giocatore indicato, prima tra le VCF e poi tra le VCT
+     * @param board Configurazione da analizzare (viene ripristinata al termine)
+     * @param attacker Giocatore che deve muovere
+     * @param deadline Istante entro cui terminare la ricerca
+     * @return La prima mossa della sequenza vincente, null se non è stata trovata
+     * @implNote Costo (pessimo): O( MAX_NODES * K^2 )
+     * */
+    public MNKCell findWin(BoardStatus board, MNKCellState attacker, long deadline) {
+        this.board = board;
+        this.attacker = attacker;
+        this.defender = attacker == MNKCellState.P1 ? MNKCellState.P2 : MNKCellState.P1;
+        this.deadline = deadline;
+        this.visitedNodes = 0;
+
+        ArrayList<Coord> attackerWins = new ArrayList<>(), defenderWins = new ArrayList<>();
+        for (int x=0; x<columns; x++) {
+            for (int y=0; y<rows; y++) {
+                if (!board.isFreeAt(x, y)) { continue; }
+                if (board.getMovesToWinAt(x, y, attacker) == 1) { attackerWins.add(new Coord(x, y)); }
+                if (board.getMovesToWinAt(x, y, defender) == 1) { defenderWins.add(new Coord(x, y)); }
+            }
+        }
+
+        // Vittoria immediata
+        if (!attackerWins.isEmpty()) { return toCell(attackerWins.get(0)); }
+        // L'avversario minaccia di vincere: la mossa è obbligata e viene lasciata alla ricerca completa
+        if (!defenderWins.isEmpty()) { return null; }
+
+        Coord win = null;
+        try {
+            win = searchRoot(false, MAX_VCF_DEPTH);
+            if (win == null) { win = searchRoot(true, MAX_VCT_DEPTH); }
+        }
+        catch (SearchTimeoutException e) {
+            // Ripristina la configurazione iniziale
+            for (Coord move : attackerMoves) { board.removeAt(move.x, move.y); }
+            for (Coord move : defenderMoves) { board.removeAt(move.x, move.y); }
+            win = null;
+        }
+        attackerMoves.clear();
+        defenderMoves.clear();
+
+        return win != null ? toCell(win) : null;
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private MNKCell toCell(Coord coord) {
+        return new MNKCell(coord.y, coord.x, attacker);
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private boolean isValidCell(int x, int y) {
+        return (x >= 0 && x < columns) && (y >= 0 && y < rows);
+    }
+
+    /**
+     * Interrompe la ricerca se il budget a disposizione è terminato
+     * @implNote Costo: Θ(1)
+     * */
+    private void checkBudget() {
+        visitedNodes++;
+        if (visitedNodes > MAX_NODES || System.currentTimeMillis() >= deadline) {
+            throw new SearchTimeoutException();
+        }
+    }
+
+    /**
+     * Restituisce il numero minimo di mosse necessarie al giocatore per vincere passando per una cella libera
+     * @implNote Costo: Θ(K)
+     * */
+    private int movesToWinAt(int x, int y, MNKCellState state) {
+        return board.getMovesToWinAt(x, y, state);
+    }
+
+    /**
+     * Aggiunge alla lista le celle libere a distanza minore di K sulle linee che passano per (x, y) che soddisfano il filtro
+     * @param maxMovesToWin Numero massimo di mosse necessarie al giocatore per vincere passando per la cella
+     * @implNote Costo: O( K^2 )
+     * */
+    private void collectOnLines(int x, int y, MNKCellState state, int maxMovesToWin, ArrayList<Coord> out) {
+        final int[][] directions = { {1, 0}, {0, 1}, {1, 1}, {1, -1} };
+
+        for (int[] direction : directions) {
+            for (int k=-(target-1); k<=target-1; k++) {
+                int toCheck_x = x + k*direction[0];
+                int toCheck_y = y + k*direction[1];
+                if (k == 0 || !isValidCell(toCheck_x, toCheck_y) || !board.isFreeAt(toCheck_x, toCheck_y)) { continue; }
+                if (movesToWinAt(toCheck_x, toCheck_y, state) > maxMovesToWin) { continue; }
+
+                Coord coord = new Coord(toCheck_x, toCheck_y);
+                if (!out.contains(coord)) { out.add(coord); }
+            }
+        }
+    }
+
+    /**
+     * Restituisce le celle vincenti del giocatore create dalle mosse indicate
+     * @implNote Costo: O( |moves| * K^2 )
+     * */
+    private ArrayList<Coord> winningCells(ArrayList<Coord> moves, MNKCellState state) {
+        ArrayList<Coord> out = new ArrayList<>();
+        for (Coord move : moves) { collectOnLines(move.x, move.y, state, 1, out); }
+        return out;
+    }
+
+    /**
+     * Indica se la mossa appena giocata in (x, y) ha completato un allineamento del giocatore
+     * @implNote Costo: Θ(K)
+     * */
+    private boolean isWinningMove(int x, int y, MNKCellState state) {
+        return board.getMovesToWinAt(x, y, state) == 0;
+    }
+
+    /**
+     * Indica se la mossa appena giocata in (x, y) dall'attaccante prepara una doppia minaccia
+     * (esiste una cella che, occupata, crea almeno due celle vincenti)
+     * @implNote Costo: O( K^3 )
+     * */
+    private boolean createsThreat(int x, int y) {
+        ArrayList<Coord> candidates = new ArrayList<>();
+        collectOnLines(x, y, attacker, 2, candidates);
+
+        for (Coord candidate : candidates) {
+            board.setAt(candidate.x, candidate.y, attacker);
+            ArrayList<Coord> wins = new ArrayList<>();
+            collectOnLines(candidate.x, candidate.y, attacker, 1, wins);
+            board.removeAt(candidate.x, candidate.y);
+
+            if (wins.size() > 1) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Prima mossa dell'attaccante: i candidati sono cercati su tutta la griglia
+     * @param threats Indica se sono ammesse minacce che non creano una cella vincente (VCT)
+     * @return La prima mossa della sequenza vincente, null se non è stata trovata
+     * @implNote Costo (pessimo): O( MAX_NODES * K^2 )
+     * */
+    private Coord searchRoot(boolean threats, int depth) {
+        ArrayList<Coord> candidates = new ArrayList<>();
+        for (int x=0; x<columns; x++) {
+            for (int y=0; y<rows; y++) {
+                if (board.isFreeAt(x, y) && movesToWinAt(x, y, attacker) <= (threats ? 3 : 2)) { candidates.add(new Coord(x, y)); }
+            }
+        }
+
+        for (Coord candidate : candidates) {
+            if (tryAttack(candidate, threats, depth)) { return candidate; }
+        }
+        return null;
+    }
+
+    /**
+     * Turno dell'attaccante
+     * @return true se l'attaccante ha una sequenza forzante vincente
+     * @implNote Costo (pessimo): O( MAX_NODES * K^2 )
+     * */
+    private boolean attack(boolean threats, int depth) {
+        checkBudget();
+
+        // Vittoria immediata (celle vincenti non bloccate dall'avversario)
+        if (!winningCells(attackerMoves, attacker).isEmpty()) { return true; }
+
+        // L'avversario minaccia di vincere: l'attaccante deve bloccare
+        ArrayList<Coord> defenderWins = winningCells(defenderMoves, defender);
+        if (defenderWins.size() > 1 || depth <= 0) { return false; }
+
+        ArrayList<Coord> candidates = new ArrayList<>();
+        if (defenderWins.size() == 1) {
+            candidates.add(defenderWins.get(0));
+        }
+        else {
+            // Espansione per dipendenza: solo le celle sulle linee dell'ultima mossa dell'attaccante
+            Coord last = attackerMoves.get(attackerMoves.size()-1);
+            collectOnLines(last.x, last.y, attacker, threats ? 3 : 2, candidates);
+        }
+
+        for (Coord candidate : candidates) {
+            if (tryAttack(candidate, threats, depth)) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Gioca la mossa dell'attaccante e valuta tutte le risposte dell'avversario
+     * @return true se la mossa porta alla vittoria qualunque sia la risposta dell'avversario
+     * @implNote Costo (pessimo): O( MAX_NODES * K^2 )
+     * */
+    private boolean tryAttack(Coord move, boolean threats, int depth) {
+        board.setAt(move.x, move.y, attacker);
+        attackerMoves.add(move);
+
+        boolean win;
+        ArrayList<Coord> fours = new ArrayList<>();
+        collectOnLines(move.x, move.y, attacker, 1, fours);
+
+        if (isWinningMove(move.x, move.y, attacker) || fours.size() > 1) {
+            // L'avversario non può bloccare più di una cella vincente
+            win = true;
+        }
+        else if (fours.size() == 1) {
+            // Risposta obbligata
+            win = defend(fours.get(0), threats, depth);
+        }
+        else if (threats && createsThreat(move.x, move.y)) {
+            // Risposte rilevanti: le celle sulle linee della minaccia e le mosse con cui l'avversario crea una cella vincente
+            ArrayList<Coord> defenses = new ArrayList<>();
+            collectOnLines(move.x, move.y, attacker, target, defenses);
+            for (int x=0; x<columns; x++) {
+                for (int y=0; y<rows; y++) {
+                    Coord coord = new Coord(x, y);
+                    if (board.isFreeAt(x, y) && movesToWinAt(x, y, defender) == 2 && !defenses.contains(coord)) { defenses.add(coord); }
+                }
+            }
+
+            // Una risposta non rilevante equivale a passare il turno
+            win = attack(threats, depth-1);
+            for (int i=0; i<defenses.size() && win; i++) {
+                win = defend(defenses.get(i), threats, depth);
+            }
+        }
+        else {
+            win = false;
+        }
+
+        attackerMoves.remove(attackerMoves.size()-1);
+        board.removeAt(move.x, move.y);
+        return win;
+    }
+
+    /**
+     * Gioca la risposta dell'avversario e prosegue con il turno dell'attaccante
+     * @return true se l'attaccante vince nonostante la risposta
+     * @implNote Costo (pessimo): O( MAX_NODES * K^2 )
+     * */
+    private boolean defend(Coord move, boolean threats, int depth) {
+        board.setAt(move.x, move.y, defender);
+        defenderMoves.add(move);
+
+        boolean win = !isWinningMove(move.x, move.y, defender) && attack(threats, depth-1);
+
+        defenderMoves.remove(defenderMoves.size()-1);
+        board.removeAt(move.x, move.y);
+        return win;
+    }
+}
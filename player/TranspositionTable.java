@@ -0,0 +1,106 @@
+package player;
+
+/**
+ * Tabella delle trasposizioni a dimensione fissa, memorizzata in vettori di primitivi.
+ * Ogni bucket è composto da due posizioni: la prima viene sostituita solo da ricerche più profonde (o più recenti),
+ * la seconda viene sempre sovrascritta.
+ * Ogni voce è codificata in un long: | valida (1) | età (5) | tipo (2) | profondità (8) | mossa (16) | punteggio (32) |
+ * La tabella può essere condivisa tra più thread senza sincronizzazione: la chiave viene memorizzata in XOR con la voce,
+ * in modo che una scrittura concorrente incompleta venga scartata come mancata corrispondenza.
+ * */
+public class TranspositionTable {
+    public static final int EXACT = 0, LOWER_BOUND = 1, UPPER_BOUND = 2;
+    public static final int NO_MOVE = -1;
+    public static final int MAX_DEPTH = 255;
+    public static final long MISS = 0;
+
+    private static final long VALID_BIT = 1L << 63;
+    private static final int AGE_MASK = 0x1F;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int bucketMask;
+    private int age;
+
+    /**
+     * @param sizeLog2 Logaritmo in base 2 del numero di voci
+     * @implNote Costo: Θ(2^sizeLog2)
+     * */
+    public TranspositionTable(int sizeLog2) {
+        this.keys = new long[1 << sizeLog2];
+        this.entries = new long[1 << sizeLog2];
+        this.bucketMask = (1 << (sizeLog2-1)) - 1;
+        this.age = 0;
+    }
+
+    /**
+     * Segnala l'inizio di una nuova ricerca: le voci delle ricerche precedenti diventano sostituibili
+     * @implNote Costo: Θ(1)
+     * */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Restituisce la voce associata alla chiave, MISS se assente
+     * @implNote Costo: Θ(1)
+     * */
+    public long probe(long key) {
+        int index = ((int)key & bucketMask) << 1;
+
+        long entry = entries[index];
+        if (entry != MISS && (keys[index] ^ entry) == key) { return entry; }
+        entry = entries[index+1];
+        if (entry != MISS && (keys[index+1] ^ entry) == key) { return entry; }
+        return MISS;
+    }
+
+    /**
+     * Memorizza il risultato della valutazione di una posizione
+     * @param move Indice della mossa migliore (NO_MOVE se non disponibile)
+     * @implNote Costo: Θ(1)
+     * */
+    public void store(long key, int depth, int bound, int score, int move) {
+        int index = ((int)key & bucketMask) << 1;
+        long entry = encode(depth, bound, score, move);
+
+        // La posizione a sostituzione per profondità viene sovrascritta se vuota, obsoleta, della stessa posizione o meno profonda
+        long old = entries[index];
+        long oldKey = keys[index] ^ old;
+        if (old == MISS || oldKey == key || ageOf(old) != age || depth >= depthOf(old)) {
+            // La voce rimpiazzata viene spostata nella posizione a sostituzione immediata
+            if (old != MISS && oldKey != key) {
+                keys[index+1] = oldKey ^ old;
+                entries[index+1] = old;
+            }
+            keys[index] = key ^ entry;
+            entries[index] = entry;
+        }
+        else {
+            keys[index+1] = key ^ entry;
+            entries[index+1] = entry;
+        }
+    }
+
+    /**
+     * @implNote Costo: Θ(1)
+     * */
+    private long encode(int depth, int bound, int score, int move) {
+        return VALID_BIT |
+               ((long)(age & AGE_MASK) << 58) |
+               ((long)bound << 56) |
+               ((long)Math.min(Math.max(depth, 0), MAX_DEPTH) << 48) |
+               ((long)((move + 1) & 0xFFFF) << 32) |
+               ((long)score & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Funzioni per la decodifica di una voce
+     * @implNote Costo: Θ(1)
+     * */
+    public static int scoreOf(long entry) { return (int)entry; }
+    public static int moveOf(long entry) { return (int)((entry >>> 32) & 0xFFFF) - 1; }
+    public static int depthOf(long entry) { return (int)((entry >>> 48) & 0xFF); }
+    public static int boundOf(long entry) { return (int)((entry >>> 56) & 0x3); }
+    private static int ageOf(long entry) { return (int)((entry >>> 58) & AGE_MASK); }
+}
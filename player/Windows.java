@@ -0,0 +1,91 @@
+package player;
+
+/**
+ * Finestre della griglia: tutti i segmenti di K celle consecutive lungo righe, colonne, diagonali e antidiagonali
+ * (gli unici allineamenti con cui si può vincere).
+ * Per ogni cella viene precalcolato l'elenco delle finestre che la contengono (al più 4K)
+ * */
+public class Windows {
+    private static final int[] DX = { 1, 0, 1, 1 };     // Direzioni: riga, colonna, diagonale, antidiagonale
+    private static final int[] DY = { 0, 1, 1, -1 };
+    private static Windows cached = null;
+
+    private final int columns, rows, target;
+    private final int count;
+    private final int[][] cellWindows;     // cellWindows[c] = finestre che contengono la cella c (riga*N + colonna)
+
+    /**
+     * @implNote Costo: Θ(M*N*K)
+     * */
+    private Windows(int columns, int rows, int target) {
+        this.columns = columns;
+        this.rows = rows;
+        this.target = target;
+
+        // Numero di finestre che contengono ciascuna cella
+        int[] sizes = new int[columns*rows];
+        for (int d=0; d<DX.length; d++) {
+            for (int y=0; y<rows; y++) {
+                for (int x=0; x<columns; x++) {
+                    if (!isWindowAt(x, y, d)) { continue; }
+                    for (int k=0; k<target; k++) { sizes[(y + k*DY[d])*columns + (x + k*DX[d])]++; }
+                }
+            }
+        }
+
+        this.cellWindows = new int[columns*rows][];
+        for (int cell=0; cell<columns*rows; cell++) { cellWindows[cell] = new int[sizes[cell]]; }
+
+        int windows = 0;
+        for (int d=0; d<DX.length; d++) {
+            for (int y=0; y<rows; y++) {
+                for (int x=0; x<columns; x++) {
+                    if (!isWindowAt(x, y, d)) { continue; }
+                    for (int k=0; k<target; k++) {
+                        int cell = (y + k*DY[d])*columns + (x + k*DX[d]);
+                        cellWindows[cell][--sizes[cell]] = windows;
+                    }
+                    windows++;
+                }
+            }
+        }
+        this.count = windows;
+    }
+
+    /**
+     * Restituisce le finestre per una griglia di determinate dimensioni
+     * @implNote Costo (pessimo): Θ(M*N*K)<br/>
+     *           Costo (ottimo): Θ(1) [Finestre già calcolate]
+     * */
+    public static synchronized Windows of(int columns, int rows, int target) {
+        if (cached == null || cached.columns != columns || cached.rows != rows || cached.target != target) {
+            cached = new Windows(columns, rows, target);
+        }
+        return cached;
+    }
+
+    /**
+     * Restituisce il numero di finestre della griglia
+     * @implNote Costo: Θ(1)
+     * */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Restituisce le finestre che contengono la cella indicata (riga*N + colonna). L'array non va modificato
+     * @implNote Costo: Θ(1)
+     * */
+    public int[] windowsOf(int cell) {
+        return cellWindows[cell];
+    }
+
+    /**
+     * Indica se la finestra che parte da (x, y) nella direzione indicata è interamente nella griglia
+     * @implNote Costo: Θ(1)
+     * */
+    private boolean isWindowAt(int x, int y, int direction) {
+        int endX = x + (target-1)*DX[direction], endY = y + (target-1)*DY[direction];
+        return x >= 0 && x < columns && y >= 0 && y < rows && endX >= 0 && endX < columns && endY >= 0 && endY < rows;
+    }
+}
@@ -0,0 +1,60 @@
+package player;
+
+import mnkgame.*;
+
+import java.util.Random;
+
+public class Zobrist {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static Zobrist cached = null;
+
+    private final int columns, rows;
+    private final long[] p1Keys, p2Keys;
+
+    /**
+     * @implNote Costo: Θ(M*N)
+     * */
+    private Zobrist(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.p1Keys = new long[columns*rows];
+        this.p2Keys = new long[columns*rows];
+
+        // Il seme è fisso in modo che tutte le istanze con le stesse dimensioni generino le stesse chiavi
+        Random random = new Random(SEED);
+        for (int i=0; i<columns*rows; i++) {
+            p1Keys[i] = random.nextLong();
+            p2Keys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Restituisce le chiavi per una griglia di determinate dimensioni
+     * @implNote Costo (pessimo): Θ(M*N)<br/>
+     *           Costo (ottimo): Θ(1) [Chiavi già generate]
+     * */
+    public static synchronized Zobrist of(int columns, int rows) {
+        if (cached == null || cached.columns != columns || cached.rows != rows) {
+            cached = new Zobrist(columns, rows);
+        }
+        return cached;
+    }
+
+    /**
+     * Restituisce la chiave associata ad una cella in un determinato stato (0 se la cella è libera)
+     * @implNote Costo: Θ(1)
+     * */
+    public long keyOf(int x, int y, MNKCellState state) {
+        return keyOf(y*columns + x, state);
+    }
+
+    /**
+     * Restituisce la chiave associata ad una cella (indicata da riga*N + colonna) in un determinato stato (0 se la cella è libera)
+     * @implNote Costo: Θ(1)
+     * */
+    public long keyOf(int cell, MNKCellState state) {
+        if (state == MNKCellState.P1) { return p1Keys[cell]; }
+        else if (state == MNKCellState.P2) { return p2Keys[cell]; }
+        else { return 0; }
+    }
+}